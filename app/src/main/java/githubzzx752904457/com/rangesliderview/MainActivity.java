@@ -4,6 +4,16 @@ import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
 import android.widget.TextView;
 
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import githubzzx752904457.com.rangesliderview.core.ConflatingDispatcher;
+import githubzzx752904457.com.rangesliderview.core.SliderScale;
+import githubzzx752904457.com.rangesliderview.core.SliderValues;
+
 import githubzzx752904457.com.rangesliderview.widgets.RangeSliderView;
 
 public class MainActivity extends AppCompatActivity {
@@ -11,8 +21,25 @@ public class MainActivity extends AppCompatActivity {
     private TextView amount;
     private TextView tvReturn;
 
-    private String[] amountStr = {"100.00", "10,000.00", "30,000.00", "50,000.00", "100,000.00"};
-    private String[] returnStr = {"0.99", "98.81", "296.42", "494.03", "988.05"};
+    /** 计算收益放在后台线程,不阻塞拖动和动画 */
+    private final ExecutorService quoteExecutor = Executors.newSingleThreadExecutor();
+
+    /** 刻度文字在 UI 线程格式化,收益在 quoteExecutor 上格式化,DecimalFormat 不是线程安全的 */
+    private final SliderValues.Formatter moneyFormatter = new SliderValues.Formatter() {
+        private final DecimalFormat format =
+                new DecimalFormat("#,##0.00", DecimalFormatSymbols.getInstance(Locale.US));
+
+        @Override
+        public synchronized String format(double value) {
+            return format.format(value);
+        }
+    };
+
+    private final SliderValues amounts = SliderValues.of(
+            new double[]{100, 10000, 30000, 50000, 100000}, moneyFormatter);
+
+    private final SliderValues returns = SliderValues.of(
+            new double[]{0.99, 98.81, 296.42, 494.03, 988.05}, moneyFormatter);
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -24,14 +51,28 @@ public class MainActivity extends AppCompatActivity {
         amount = (TextView) findViewById(R.id.amount);
         tvReturn = (TextView) findViewById(R.id.tv_return);
 
+        rsv.setValues(amounts);
+        // 金额从 100 到 100,000,按对数排列,小金额不会挤在一起
+        rsv.setScale(SliderScale.LOG);
         rsv.setInitialIndex(0);
         rsv.setIcon(R.mipmap.gold_coin);
-        rsv.setOnSlideListener(new RangeSliderView.OnSlideListener() {
+        rsv.setOnSlideListener(quoteExecutor, new ConflatingDispatcher.Callback<String[]>() {
             @Override
-            public void onSlide(int index) {
-                amount.setText(amountStr[index]);
-                tvReturn.setText(returnStr[index]);
+            public String[] onSlide(int index) {
+                return new String[]{amounts.labelAt(index), returns.labelAt(index)};
+            }
+
+            @Override
+            public void onResult(int index, String[] result) {
+                amount.setText(result[0]);
+                tvReturn.setText(result[1]);
             }
         });
     }
+
+    @Override
+    protected void onDestroy() {
+        quoteExecutor.shutdown();
+        super.onDestroy();
+    }
 }
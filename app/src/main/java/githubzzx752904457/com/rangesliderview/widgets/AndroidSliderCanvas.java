@@ -0,0 +1,125 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+
+import githubzzx752904457.com.rangesliderview.core.SliderCanvas;
+
+/**
+ * 把 {@link SliderCanvas} 的操作画到 Android 的 Canvas 上。
+ * <p>
+ * 只在 onDraw 期间持有 Canvas,每次画之前设置画笔的颜色和线宽。
+ */
+final class AndroidSliderCanvas implements SliderCanvas {
+
+    /** 填充画笔,画横线 */
+    private final Paint barPaint;
+
+    /** 圆头描边画笔,画圆点和线段 */
+    private final Paint slotPaint;
+
+    /** 画滑块 */
+    private final Paint thumbPaint;
+
+    /** 1 像素宽的平头描边画笔,画柱子 */
+    private final Paint columnPaint;
+
+    /** 居中对齐的文字画笔,可以被单个滑块换成自己的 */
+    private Paint textPaint;
+
+    private Canvas canvas;
+
+    private Bitmap thumbBitmap;
+
+    /** 柱子转成的竖线,每根 4 个 float,只在需要更多时变大 */
+    private float[] lines = new float[0];
+
+    AndroidSliderCanvas(Paint barPaint, Paint slotPaint, Paint thumbPaint, Paint columnPaint, Paint textPaint) {
+        this.barPaint = barPaint;
+        this.slotPaint = slotPaint;
+        this.thumbPaint = thumbPaint;
+        this.columnPaint = columnPaint;
+        this.textPaint = textPaint;
+    }
+
+    void setTextPaint(Paint textPaint) {
+        this.textPaint = textPaint;
+    }
+
+    /**
+     * @param thumbBitmap 滑块的图片,为 null 时画圆
+     */
+    void begin(Canvas canvas, Bitmap thumbBitmap) {
+        this.canvas = canvas;
+        this.thumbBitmap = thumbBitmap;
+    }
+
+    void end() {
+        canvas = null;
+        thumbBitmap = null;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, int color) {
+        barPaint.setColor(color);
+        canvas.drawRect(left, top, right, bottom, barPaint);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int offset, int count, float size, int color) {
+        slotPaint.setColor(color);
+        slotPaint.setStrokeWidth(size);
+        canvas.drawPoints(points, offset, count, slotPaint);
+    }
+
+    @Override
+    public void drawLine(float x0, float y0, float x1, float y1, float width, int color) {
+        slotPaint.setColor(color);
+        slotPaint.setStrokeWidth(width);
+        canvas.drawLine(x0, y0, x1, y1, slotPaint);
+    }
+
+    @Override
+    public void drawColumns(float left, float bottom, float[] heights, int count, int color) {
+        if (lines.length < count * 4) {
+            lines = new float[count * 4];
+        }
+        // 一次 drawLines 画完所有柱子,高度为 0 的不画
+        int n = 0;
+        for (int i = 0; i < count; ++i) {
+            float h = heights[i];
+            if (h > 0) {
+                float x = left + i + 0.5f;
+                lines[n] = x;
+                lines[n + 1] = bottom;
+                lines[n + 2] = x;
+                lines[n + 3] = bottom - h;
+                n += 4;
+            }
+        }
+        if (n > 0) {
+            columnPaint.setColor(color);
+            canvas.drawLines(lines, 0, n, columnPaint);
+        }
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float baseline, int color) {
+        textPaint.setColor(color);
+        canvas.drawText(text, centerX, baseline, textPaint);
+    }
+
+    @Override
+    public void drawThumb(float x, float y, float radius, int color) {
+        Bitmap bitmap = thumbBitmap;
+        if (bitmap != null) {
+            /** 画拖动的图片 */
+            canvas.drawBitmap(bitmap, x - bitmap.getWidth() / 2, y - bitmap.getHeight() / 2, thumbPaint);
+        } else {
+            /** 画拖动的圆 */
+            thumbPaint.setColor(color);
+            canvas.drawCircle(x, y, radius, thumbPaint);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.view.Choreographer;
+import android.view.View;
+
+/**
+ * 在下一帧回调一次,同一帧内多次 {@link #post()} 只回调一次。
+ * <p>
+ * API 16 及以上跟随 Choreographer 的 vsync,更低的版本用 View#postDelayed 模拟。
+ * 回调对象只创建一次,post 不分配内存。
+ */
+final class FrameTicker {
+
+    interface Callback {
+        /**
+         * @param frameTimeNanos 这一帧开始的时间,System.nanoTime() 时间基准
+         */
+        void doFrame(long frameTimeNanos);
+    }
+
+    private static final long FALLBACK_FRAME_DELAY_MS = 16;
+
+    private final View view;
+
+    private final Callback callback;
+
+    private final Runnable fallback;
+
+    private final Object frameCallback;
+
+    private boolean posted;
+
+    FrameTicker(View view, Callback callback) {
+        this.view = view;
+        this.callback = callback;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            frameCallback = new VsyncCallback(this);
+            fallback = null;
+        } else {
+            frameCallback = null;
+            fallback = new Runnable() {
+                @Override
+                public void run() {
+                    dispatch(System.nanoTime());
+                }
+            };
+        }
+    }
+
+    void post() {
+        if (posted) {
+            return;
+        }
+        posted = true;
+        if (frameCallback != null) {
+            ((VsyncCallback) frameCallback).post();
+        } else {
+            view.postDelayed(fallback, FALLBACK_FRAME_DELAY_MS);
+        }
+    }
+
+    void cancel() {
+        if (!posted) {
+            return;
+        }
+        posted = false;
+        if (frameCallback != null) {
+            ((VsyncCallback) frameCallback).cancel();
+        } else {
+            view.removeCallbacks(fallback);
+        }
+    }
+
+    private void dispatch(long frameTimeNanos) {
+        if (!posted) {
+            return;
+        }
+        posted = false;
+        callback.doFrame(frameTimeNanos);
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static final class VsyncCallback implements Choreographer.FrameCallback {
+
+        private final FrameTicker ticker;
+
+        VsyncCallback(FrameTicker ticker) {
+            this.ticker = ticker;
+        }
+
+        void post() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            ticker.dispatch(frameTimeNanos);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.view.View;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import githubzzx752904457.com.rangesliderview.core.HistogramBinner;
+import githubzzx752904457.com.rangesliderview.core.SliderCanvas;
+import githubzzx752904457.com.rangesliderview.core.SliderGeometry;
+
+/**
+ * 画在横线后面的数据分布。
+ * <p>
+ * 数据按像素列统计,在后台线程完成,数据很多时再分块并行;统计结果缓存在每列一个数的数组里,
+ * 绘制只和宽度有关,和数据量无关。只有尺寸、点的位置或数据变化后才重新统计,
+ * 追加数据时只统计新增的部分。除了后台的统计,其他方法都在 UI 线程调用。
+ */
+final class HistogramTrack {
+
+    private static ExecutorService sWorker;
+
+    private static ExecutorService sPool;
+
+    private final View view;
+
+    private final HistogramBinner binner;
+
+    private final Executor mainExecutor;
+
+    /** 是否已经有统计任务在排队或运行 */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    /** 数据或列的边界在最近一次统计开始后变过 */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final Runnable binTask = new Runnable() {
+        @Override
+        public void run() {
+            binPending();
+        }
+    };
+
+    /** 当前布局下每一列的边界,后台线程读取 */
+    private volatile double[] edges;
+
+    /** 最近一次统计的结果;布局变化后新的结果送达前继续画旧的,列数可能和 edges 不一致 */
+    private int[] counts;
+
+    private int maxCount;
+
+    /** 按当前高度换算好的柱子高度 */
+    private float[] heights = new float[0];
+
+    /** heights 对应的几何版本,-1 表示需要重新换算 */
+    private int heightsVersion = -1;
+
+    HistogramTrack(View view, Executor mainExecutor) {
+        this.view = view;
+        this.mainExecutor = mainExecutor;
+        ExecutorService pool = pool();
+        binner = new HistogramBinner(pool, HistogramBinner.DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * 统计请求排队的线程,同一时间只统计一个滑块
+     */
+    private static synchronized ExecutorService worker() {
+        if (sWorker == null) {
+            sWorker = Executors.newSingleThreadExecutor(daemonThreads("RangeSliderHistogram"));
+        }
+        return sWorker;
+    }
+
+    /**
+     * 分块统计的线程池,单核时为 null,直接在 worker 上统计
+     */
+    private static synchronized ExecutorService pool() {
+        int threads = Runtime.getRuntime().availableProcessors();
+        if (sPool == null && threads > 1) {
+            sPool = Executors.newFixedThreadPool(threads, daemonThreads("RangeSliderHistogramChunk"));
+        }
+        return sPool;
+    }
+
+    private static ThreadFactory daemonThreads(final String name) {
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, name);
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * 替换全部数据,数组直接使用,之后不能再修改
+     */
+    void setData(double[] values, int count) {
+        binner.setData(values, count);
+        request();
+    }
+
+    void append(double[] values, int offset, int count) {
+        binner.append(values, offset, count);
+        request();
+    }
+
+    void clear() {
+        binner.clear();
+        counts = null;
+        request();
+        view.invalidate();
+    }
+
+    /**
+     * 几何信息变化后调用,列的边界变了才重新统计,只有高度变化时重新换算柱子高度。
+     * geometry 会复用边界数组,变化时复制一份交给 worker
+     */
+    void onLayout(SliderGeometry geometry) {
+        heightsVersion = -1;
+        double[] edges = geometry.columnEdges();
+        if (Arrays.equals(edges, this.edges)) {
+            return;
+        }
+        this.edges = edges != null ? edges.clone() : null;
+        request();
+    }
+
+    /**
+     * 单槽的统计请求:统计过程中再有请求只标记一次,统计完后按最新的数据和边界再统计一次
+     */
+    private void request() {
+        if (edges == null) {
+            return;
+        }
+        dirty.set(true);
+        if (scheduled.compareAndSet(false, true)) {
+            worker().execute(binTask);
+        }
+    }
+
+    /**
+     * 在 worker 上执行
+     */
+    private void binPending() {
+        try {
+            while (dirty.getAndSet(false)) {
+                final double[] edges = this.edges;
+                if (edges == null) {
+                    continue;
+                }
+                final int[] result = binner.bin(edges);
+                mainExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onBinned(edges, result);
+                    }
+                });
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记和最后一次检查之间可能有新的请求没抢到标记
+            if (dirty.get() && scheduled.compareAndSet(false, true)) {
+                worker().execute(binTask);
+            }
+        }
+    }
+
+    private void onBinned(double[] binnedEdges, int[] result) {
+        // 按旧的边界统计的结果已经过时,新的结果还在路上
+        if (binnedEdges != edges) {
+            return;
+        }
+        counts = result;
+        maxCount = HistogramBinner.max(result);
+        heightsVersion = -1;
+        view.invalidate();
+    }
+
+    /**
+     * 从 top 到横线中心之间画柱子,最多的一列占满整个高度
+     *
+     * @return 绘制调用的次数
+     */
+    int draw(SliderCanvas canvas, SliderGeometry geometry, int top, int color) {
+        int[] counts = this.counts;
+        double[] edges = this.edges;
+        if (counts == null || edges == null || maxCount == 0) {
+            return 0;
+        }
+        int bottom = geometry.getCenterY();
+        // 布局刚变化时 counts 还是旧的列数,最多画到当前的宽度
+        int columns = Math.min(counts.length, edges.length - 1);
+        if (heightsVersion != geometry.getVersion()) {
+            heightsVersion = geometry.getVersion();
+            if (heights.length < counts.length) {
+                heights = new float[counts.length];
+            }
+            float scale = (float) (bottom - top) / maxCount;
+            for (int c = 0; c < counts.length; ++c) {
+                heights[c] = counts[c] * scale;
+            }
+        }
+        canvas.drawColumns(geometry.getFirstSlotX(), bottom, heights, columns, color);
+        return 1;
+    }
+}
@@ -1,34 +1,43 @@
 package githubzzx752904457.com.rangesliderview.widgets;
 
-import android.animation.Animator;
-import android.animation.ObjectAnimator;
+import android.annotation.TargetApi;
 import android.content.Context;
 import android.content.res.TypedArray;
 import android.graphics.Bitmap;
-import android.graphics.BitmapFactory;
 import android.graphics.Canvas;
-import android.graphics.Color;
-import android.graphics.Matrix;
 import android.graphics.Paint;
-import android.graphics.Path;
-import android.graphics.RadialGradient;
 import android.graphics.Rect;
-import android.graphics.Region;
-import android.graphics.Shader;
+import android.graphics.Typeface;
 import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.Parcel;
 import android.os.Parcelable;
+import android.os.SystemClock;
 import android.util.AttributeSet;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewTreeObserver;
-import android.view.animation.AccelerateInterpolator;
 
+import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
-
-import githubzzx752904457.com.rangesliderview.R;
-import githubzzx752904457.com.rangesliderview.interfaces.AnimateMethod;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import githubzzx752904457.com.rangesliderview.core.ConflatingDispatcher;
+import githubzzx752904457.com.rangesliderview.core.RenderPlan;
+import githubzzx752904457.com.rangesliderview.core.QuantileSlots;
+import githubzzx752904457.com.rangesliderview.core.SliderCanvas;
+import githubzzx752904457.com.rangesliderview.core.SliderGeometry;
+import githubzzx752904457.com.rangesliderview.core.SliderMeasure;
+import githubzzx752904457.com.rangesliderview.core.SliderModel;
+import githubzzx752904457.com.rangesliderview.core.SliderScale;
+import githubzzx752904457.com.rangesliderview.core.SliderState;
+import githubzzx752904457.com.rangesliderview.core.SliderStateStore;
+import githubzzx752904457.com.rangesliderview.core.SliderValues;
+import githubzzx752904457.com.rangesliderview.core.SnapMotion;
+import githubzzx752904457.com.rangesliderview.core.TextWidthCache;
+import githubzzx752904457.com.rangesliderview.core.TickLabelLayout;
 
 public class RangeSliderView extends View {
 
@@ -36,78 +45,204 @@ public class RangeSliderView extends View {
 
     private static final long RIPPLE_ANIMATION_DURATION_MS = TimeUnit.MILLISECONDS.toMillis(700);
 
-    private static final int DEFAULT_PAINT_STROKE_WIDTH = 5;
+    static final int DEFAULT_PAINT_STROKE_WIDTH = 5;
 
-    private static final int DEFAULT_FILLED_COLOR = Color.parseColor("#FFA500");
+    private static final long FLING_MIN_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(120);
 
-    private static final int DEFAULT_EMPTY_COLOR = Color.parseColor("#C3C3C3");
+    private static final long FLING_MAX_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(600);
 
-    private static final float DEFAULT_BAR_HEIGHT_PERCENT = 0.10f;
+    private static final long SETTLE_MIN_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(60);
 
-    private static final float DEFAULT_SLOT_RADIUS_PERCENT = 0.125f;
+    private static final long SETTLE_MAX_DURATION_NS = TimeUnit.MILLISECONDS.toNanos(200);
 
-    private static final float DEFAULT_SLIDER_RADIUS_PERCENT = 0.25f;
+    /** 与同样式的滑块共享,见 {@link SliderStyle} */
+    protected Paint paint;
 
-    private static final int DEFAULT_RANGE_COUNT = 5;
+    /** 第一次播放水波纹时才创建 */
+    protected Paint ripplePaint;
 
-    private static final int DEFAULT_HEIGHT_IN_DP = 50;
+    private Paint barPaint;
 
-    protected Paint paint;
+    private Paint slotPaint;
 
-    protected Paint ripplePaint;
+    private SliderStyle style;
+
+    /** onDraw 时把绘制操作转给 Canvas */
+    private AndroidSliderCanvas androidCanvas;
+
+    /** 共享的状态表,选中的下标变化时写回 stateId 对应的项 */
+    private SliderStateStore stateStore;
+
+    private long stateId;
 
     protected float radius;
 
     protected float slotRadius;
 
-    private int currentIndex;
+    private final SliderModel model = new SliderModel();
+
+    private final SliderGeometry geometry = new SliderGeometry();
+
+    private SliderValues values;
+
+    /** 设置了数据分布才创建 */
+    private HistogramTrack histogram;
+
+    /** 绑定的数据流,分位数变化后在下一帧换上新的数值 */
+    private QuantileSlots quantileSlots;
+
+    private FrameTicker quantileTicker;
+
+    /** 已经有一个换数值的请求在发往 UI 线程的路上 */
+    private final AtomicBoolean quantilesScheduled = new AtomicBoolean();
+
+    private final Runnable scheduleQuantiles = new Runnable() {
+        @Override
+        public void run() {
+            quantilesScheduled.set(false);
+            if (quantileTicker != null) {
+                quantileTicker.post();
+            }
+        }
+    };
+
+    /** 在追加数据的线程上调用,只把请求转到 UI 线程 */
+    private final QuantileSlots.Listener quantileListener = new QuantileSlots.Listener() {
+        @Override
+        public void onSlotsChanged(QuantileSlots slots) {
+            if (quantilesScheduled.compareAndSet(false, true)) {
+                MainThreadExecutor.INSTANCE.execute(scheduleQuantiles);
+            }
+        }
+    };
+
+    private int histogramColor;
+
+    private boolean showLabels;
+
+    private int labelTextColor;
+
+    /** 文字和横线之间、相邻两个文字之间的距离 */
+    private int labelPadding;
+
+    /** 默认是样式中共享的画笔,单独设置字号或字体后换成自己的 */
+    private Paint labelPaint;
+
+    private TextWidthCache labelWidths;
+
+    private final TickLabelLayout labelLayout = new TickLabelLayout();
+
+    private final Paint.FontMetrics labelMetrics = new Paint.FontMetrics();
+
+    /** 底部留给文字的高度,不显示文字时为 0 */
+    private int labelBand;
+
+    /** 文字基线到文字区域顶部的距离 */
+    private float labelBaseline;
+
+    /** onDraw 时的裁剪区域,只画和它相交的文字 */
+    private final Rect clipBounds = new Rect();
 
     private float currentSlidingX;
 
     private float currentSlidingY;
 
+    /** 上一帧画滑块时的横坐标,用来计算需要重绘的区域 */
+    private float drawnSlidingX;
+
     private float selectedSlotX;
 
     private float selectedSlotY;
 
-    private boolean gotSlot = false;
+    /** 区间模式下左右两个滑块的横坐标 */
+    private float minSlidingX;
+
+    private float maxSlidingX;
 
-    private float[] slotPositions;
+    private float drawnMinX;
 
-    private int filledColor = DEFAULT_FILLED_COLOR;
+    private float drawnMaxX;
 
-    private int emptyColor = DEFAULT_EMPTY_COLOR;
+    /** 区间模式下正在拖动的滑块 */
+    private int activeThumb = SliderGeometry.THUMB_NONE;
 
-    private float barHeightPercent = DEFAULT_BAR_HEIGHT_PERCENT;
+    private boolean gotSlot = false;
 
-    private int rangeCount = DEFAULT_RANGE_COUNT;
+    private int filledColor;
 
-    private int barHeight;
+    private int emptyColor;
 
     private OnSlideListener listener;
 
-    private float rippleRadius = 0.0f;
+    private OnSlideStreamListener streamListener;
 
-    private float downX;
+    private OnRangeSlideListener rangeListener;
 
-    private float downY;
+    private OnValueSlideListener valueListener;
+
+    /** 在后台线程处理的滑动回调 */
+    private ConflatingDispatcher<?> asyncDispatcher;
+
+    /** 拖动时每帧最多回调一次预览,设置了 streamListener 才创建 */
+    private FrameTicker previewTicker;
+
+    /** 上一次预览回调的值,没有变化时不再回调 */
+    private int previewIndex = -1;
+
+    private float previewFraction = -1;
+
+    private VelocityTracker velocityTracker;
+
+    /** 松手后滑块滑向目标点的动画(甩动或就近吸附),每帧由 snapTicker 驱动 */
+    private final SnapMotion snapMotion = new SnapMotion();
 
-    private Path innerPath = new Path();
+    /** 按住正在滑动的滑块时手指和滑块中心的距离,接着拖时保持不变,滑块不会跳到手指下 */
+    private float grabOffsetX;
 
-    private Path outerPath = new Path();
+    private FrameTicker snapTicker;
 
-    private float slotRadiusPercent = DEFAULT_SLOT_RADIUS_PERCENT;
+    /** 松手后的动画结束时是否播放水波纹,取消拖动滑回去时不播放 */
+    private boolean rippleAfterSnap;
 
-    private float sliderRadiusPercent = DEFAULT_SLIDER_RADIUS_PERCENT;
+    private RippleEffect ripple;
 
-    private int layoutHeight;
+    private float downX;
+
+    private float downY;
+
+    /** 布局中的 layout_height,代码中创建时没有布局属性,按 wrap_content 测量 */
+    private int layoutHeight = ViewGroup.LayoutParams.WRAP_CONTENT;
 
     private boolean drawImg;
 
     private int imgResource;
 
+    /** 当前资源和尺寸解码好的滑块图片,还没解码完时为 null,画圆代替 */
+    private Bitmap thumbBitmap;
+
+    /** 最近一次请求的图片边长,0 表示还没有请求 */
+    private int thumbRequestSize;
+
+    private final ThumbBitmapCache.Callback thumbCallback = new ThumbBitmapCache.Callback() {
+        @Override
+        public void onThumbLoaded(int resId, int size, Bitmap bitmap) {
+            // 解码期间换了图片或尺寸,结果已经过时
+            if (!drawImg || resId != imgResource || size != thumbRequestSize) {
+                ThumbBitmapCache.getInstance().release(bitmap);
+                return;
+            }
+            if (bitmap != null) {
+                setThumbBitmap(bitmap);
+            }
+        }
+    };
+
+    private SliderMetrics metrics;
+
+    private final RenderPlan renderPlan = new RenderPlan();
+
     public RangeSliderView(Context context) {
-        this(context, null);
+        this(context, (AttributeSet) null);
     }
 
     public RangeSliderView(Context context, AttributeSet attrs) {
@@ -117,127 +252,428 @@ public class RangeSliderView extends View {
     public RangeSliderView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
         if (attrs != null) {
-            TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RangeSliderView);
             TypedArray sa = context.obtainStyledAttributes(attrs, new int[]{android.R.attr.layout_height});
             try {
                 layoutHeight = sa.getLayoutDimension(
                         0, ViewGroup.LayoutParams.WRAP_CONTENT);
-                rangeCount = a.getInt(
-                        R.styleable.RangeSliderView_rangeCount, DEFAULT_RANGE_COUNT);
-                filledColor = a.getColor(
-                        R.styleable.RangeSliderView_filledColor, DEFAULT_FILLED_COLOR);
-                emptyColor = a.getColor(
-                        R.styleable.RangeSliderView_emptyColor, DEFAULT_EMPTY_COLOR);
-                barHeightPercent = a.getFloat(
-                        R.styleable.RangeSliderView_barHeightPercent, DEFAULT_BAR_HEIGHT_PERCENT);
-                barHeightPercent = a.getFloat(
-                        R.styleable.RangeSliderView_barHeightPercent, DEFAULT_BAR_HEIGHT_PERCENT);
-                slotRadiusPercent = a.getFloat(
-                        R.styleable.RangeSliderView_slotRadiusPercent, DEFAULT_SLOT_RADIUS_PERCENT);
-                sliderRadiusPercent = a.getFloat(
-                        R.styleable.RangeSliderView_sliderRadiusPercent, DEFAULT_SLIDER_RADIUS_PERCENT);
             } finally {
-                a.recycle();
                 sa.recycle();
             }
         }
+        setStyle(SliderStyle.obtain(context, attrs));
+    }
+
+    /**
+     * 用已经解析好的样式创建,列表中大量创建时不用每次都解析属性
+     */
+    public RangeSliderView(Context context, SliderStyle style) {
+        super(context);
+        setStyle(style);
+    }
+
+    private void setStyle(SliderStyle style) {
+        this.style = style;
+        paint = style.thumbPaint;
+        barPaint = style.barPaint;
+        slotPaint = style.slotPaint;
+        androidCanvas = new AndroidSliderCanvas(barPaint, slotPaint, paint, style.columnPaint, style.labelPaint);
+        filledColor = style.filledColor;
+        emptyColor = style.emptyColor;
+        histogramColor = style.histogramColor;
+        showLabels = style.showLabels;
+        labelTextColor = style.labelTextColor;
+        labelPadding = style.labelPadding;
+        labelPaint = style.labelPaint;
+        labelWidths = style.labelWidths;
+        updateLabelBand();
+
+        model.setBarHeightPercent(style.barHeightPercent);
+        model.setRangeCount(style.rangeCount);
+        model.setSlotRadiusPercent(style.slotRadiusPercent);
+        model.setSliderRadiusPercent(style.sliderRadiusPercent);
+        model.setRangeMode(style.rangeMode);
+        if (style.rangeMode) {
+            model.setRange(0, model.getRangeCount() - 1);
+        }
+        updateGeometry();
 
-        setBarHeightPercent(barHeightPercent);
-        setRangeCount(rangeCount);
-        setSlotRadiusPercent(slotRadiusPercent);
-        setSliderRadiusPercent(sliderRadiusPercent);
+        renderPlan.setMinMarkSpacing(style.minMarkSpacing);
+    }
 
-        slotPositions = new float[rangeCount];
-        paint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        paint.setStrokeWidth(DEFAULT_PAINT_STROKE_WIDTH);
-        paint.setStyle(Paint.Style.FILL_AND_STROKE);
+    public SliderStyle getStyle() {
+        return style;
+    }
 
-        ripplePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
-        ripplePaint.setStrokeWidth(2.0f);
-        ripplePaint.setStyle(Paint.Style.FILL_AND_STROKE);
+    /**
+     * 把 state 中的下标直接应用到滑块上,不回调监听器,也不分配内存。
+     * 列表复用滑块时在绑定数据时调用
+     */
+    public void bind(SliderState state) {
+        applyState(state.getCurrentIndex(), state.getMinIndex(), state.getMaxIndex());
+    }
+
+    /**
+     * 绑定到共享状态表中的 id:表中已有这一项时立即把滑块放到保存的位置,不用等下一次布局;
+     * 没有时写入当前状态。之后选中的下标变化都会写回表中。传 null 解除绑定
+     */
+    public void bind(SliderStateStore store, long id) {
+        stateStore = store;
+        stateId = id;
+        if (store == null) {
+            return;
+        }
+        if (store.contains(id)) {
+            int last = model.getRangeCount() - 1;
+            applyState(store.getCurrentIndex(id, 0), store.getMinIndex(id, 0), store.getMaxIndex(id, last));
+        } else {
+            saveToStore();
+        }
+    }
 
-        getViewTreeObserver().addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
-            @Override
-            public boolean onPreDraw() {
-                getViewTreeObserver().removeOnPreDrawListener(this);
+    private void saveToStore() {
+        if (stateStore != null) {
+            stateStore.put(stateId, model.getCurrentIndex(), model.getMinIndex(), model.getMaxIndex());
+        }
+    }
 
-                // 获取新的高度后更新半径
-                updateRadius(getHeight());
+    /**
+     * 超出点数的下标收到最后一个点上
+     */
+    private void applyState(int currentIndex, int minIndex, int maxIndex) {
+        stopSnap(false);
+        if (ripple != null) {
+            ripple.cancel();
+        }
+        if (previewTicker != null) {
+            previewTicker.cancel();
+        }
+        releaseVelocityTracker();
+        gotSlot = false;
+        activeThumb = SliderGeometry.THUMB_NONE;
+        previewIndex = -1;
+        previewFraction = -1;
+        // 保存的状态可能来自点数更多的配置,截到当前的范围内
+        int last = model.getRangeCount() - 1;
+        int min = Math.max(0, Math.min(minIndex, last));
+        model.setCurrentIndex(Math.max(0, Math.min(currentIndex, last)));
+        model.setRange(min, Math.max(min, Math.min(maxIndex, last)));
+        resetThumbPositions();
+        invalidate();
+    }
 
-                // 重新计算画的位置
-                preComputeDrawingPosition();
+    /**
+     * 把当前选中的下标保存到 out 中,和 {@link #bind(SliderState)} 配合使用
+     */
+    public void saveState(SliderState out) {
+        out.set(model.getCurrentIndex(), model.getMinIndex(), model.getMaxIndex());
+    }
 
-                return true;
-            }
-        });
-        currentIndex = 0;
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        updateGeometry();
+    }
+
+    @Override
+    public void setPadding(int left, int top, int right, int bottom) {
+        super.setPadding(left, top, right, bottom);
+        updateGeometry();
     }
 
-    private void updateRadius(int height) {
-        barHeight = (int) (height * barHeightPercent);
-        radius = height * sliderRadiusPercent;
-        slotRadius = height * slotRadiusPercent;
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR1)
+    @Override
+    public void setPaddingRelative(int start, int top, int end, int bottom) {
+        super.setPaddingRelative(start, top, end, bottom);
+        updateGeometry();
+    }
+
+    /**
+     * 尺寸、padding、点数或半径比例变化后重新计算半径和每个点的坐标,输入都没变时什么都不做。
+     * 绘制和触摸事件只读取算好的结果
+     */
+    private void updateGeometry() {
+        // 低版本的 View 构造函数会调用 setPadding,这时字段还没有初始化
+        if (geometry == null) {
+            return;
+        }
+        // 文字画在底部 padding 之上,横线和滑块在剩下的高度中居中
+        if (!geometry.update(model, getWidth(), Math.max(0, getHeight() - labelBand),
+                getPaddingLeft(), getPaddingTop(), getPaddingRight(), getPaddingBottom())) {
+            return;
+        }
+        radius = geometry.getRadius();
+        slotRadius = geometry.getSlotRadius();
+        requestThumbBitmap();
+        if (histogram != null) {
+            histogram.onLayout(geometry);
+        }
+        stopSnap(false);
+        resetThumbPositions();
+        invalidate();
     }
 
     public int getRangeCount() {
-        return rangeCount;
+        return model.getRangeCount();
     }
 
     public void setRangeCount(int rangeCount) {
-        if (rangeCount < 2) {
-            throw new IllegalArgumentException("rangeCount must be >= 2");
+        model.setRangeCount(rangeCount);
+        updateGeometry();
+    }
+
+    /**
+     * 设置每个点对应的数值,点的个数随之改为 values.size()
+     */
+    public void setValues(SliderValues values) {
+        this.values = values;
+        geometry.setScale(geometry.getScale(), values);
+        if (values == null) {
+            updateGeometry();
+            return;
         }
-        this.rangeCount = rangeCount;
+        setRangeCount(values.size());
+    }
+
+    public SliderValues getValues() {
+        return values;
+    }
+
+    /**
+     * 按 {@link #setValues(SliderValues)} 设置的数值排列点的位置,例如数值跨几个数量级时用
+     * {@link SliderScale#LOG}。触摸和吸附按实际坐标二分查找最近的点
+     *
+     * @param scale 为 null 时点按下标等分,这是默认的排列方式;没有设置数值时也等分
+     */
+    public void setScale(SliderScale scale) {
+        geometry.setScale(scale, values);
+        updateGeometry();
+    }
+
+    public SliderScale getScale() {
+        return geometry.getScale();
+    }
+
+    /**
+     * @return 当前选中点的数值,没有设置 {@link #setValues(SliderValues)} 时返回下标
+     */
+    public double getCurrentValue() {
+        return valueAt(model.getCurrentIndex());
+    }
+
+    private double valueAt(int index) {
+        return values != null ? values.valueAt(index) : index;
+    }
+
+    /**
+     * 绑定到一个不断增长的数据流,每个点是数据的一个分位数,点数为 slots.getSlotCount()。
+     * 后台线程追加数据后,新的分位数在下一帧换上;拖动或吸附过程中推迟到停下后的第一帧,
+     * 滑块停在同一个下标上,数值随数据变化。传 null 解除绑定,保留当前的数值
+     */
+    public void setQuantileSlots(QuantileSlots slots) {
+        if (quantileSlots != null) {
+            quantileSlots.setListener(null);
+        }
+        quantileSlots = slots;
+        if (slots == null) {
+            if (quantileTicker != null) {
+                quantileTicker.cancel();
+            }
+            return;
+        }
+        if (quantileTicker == null) {
+            quantileTicker = new FrameTicker(this, new FrameTicker.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    applyQuantiles();
+                }
+            });
+        }
+        setRangeCount(slots.getSlotCount());
+        slots.setListener(quantileListener);
+        applyQuantiles();
+    }
+
+    public QuantileSlots getQuantileSlots() {
+        return quantileSlots;
+    }
+
+    private void applyQuantiles() {
+        if (quantileSlots == null) {
+            return;
+        }
+        SliderValues latest = quantileSlots.latest();
+        if (latest == null || latest == values) {
+            return;
+        }
+        // 拖动或吸附时不换,滑块停下后由 onThumbIdle 再调用
+        if (gotSlot || snapMotion.isRunning()) {
+            return;
+        }
+        setValues(latest);
+        invalidate();
+    }
+
+    /**
+     * 在横线后面画 values 的分布,每个像素列的高度和落在这一列的数值个数成正比。
+     * 数值和 {@link #setValues(SliderValues)} 的数值同一个单位,没有设置时按下标。
+     * 统计在后台线程进行,完成后自动重画
+     *
+     * @param values 直接使用,不会复制,之后不能再修改
+     * @param count  有效的个数
+     */
+    public void setHistogramData(double[] values, int count) {
+        histogram().setData(values, count);
+    }
+
+    /**
+     * 在已有的分布数据后追加,只统计新增的部分
+     */
+    public void appendHistogramData(double[] values, int offset, int count) {
+        histogram().append(values, offset, count);
+    }
+
+    public void clearHistogram() {
+        if (histogram != null) {
+            histogram.clear();
+        }
+    }
+
+    public void setHistogramColor(int histogramColor) {
+        this.histogramColor = histogramColor;
+        invalidate();
+    }
+
+    private HistogramTrack histogram() {
+        if (histogram == null) {
+            histogram = new HistogramTrack(this, MainThreadExecutor.INSTANCE);
+            histogram.onLayout(geometry);
+        }
+        return histogram;
+    }
+
+    /**
+     * 在每个点下方显示 {@link #setValues(SliderValues)} 设置的数值文字,没有设置数值时不显示。
+     * 放不下的文字会被省略,第一个和最后一个点的文字总是显示。
+     * 文字在 UI 线程调用 {@link SliderValues#labelAt(int)} 生成,Formatter 需要能在 UI 线程使用
+     */
+    public void setShowLabels(boolean showLabels) {
+        if (this.showLabels == showLabels) {
+            return;
+        }
+        this.showLabels = showLabels;
+        onLabelMetricsChanged();
+    }
+
+    public boolean isShowLabels() {
+        return showLabels;
+    }
+
+    public void setLabelTextColor(int labelTextColor) {
+        this.labelTextColor = labelTextColor;
+        invalidate();
+    }
+
+    public int getLabelTextColor() {
+        return labelTextColor;
+    }
+
+    /**
+     * @param px 文字大小,像素
+     */
+    public void setLabelTextSize(float px) {
+        if (labelPaint.getTextSize() == px) {
+            return;
+        }
+        ownLabelPaint().setTextSize(px);
+        labelWidths.clear();
+        onLabelMetricsChanged();
+    }
+
+    public float getLabelTextSize() {
+        return labelPaint.getTextSize();
+    }
+
+    public void setLabelTypeface(Typeface typeface) {
+        if (labelPaint.getTypeface() == typeface) {
+            return;
+        }
+        ownLabelPaint().setTypeface(typeface);
+        labelWidths.clear();
+        onLabelMetricsChanged();
+    }
+
+    /**
+     * 第一次单独修改文字样式时复制一份画笔和宽度缓存,不影响共享同一个样式的其他滑块
+     */
+    private Paint ownLabelPaint() {
+        if (labelPaint == style.labelPaint) {
+            labelPaint = new Paint(style.labelPaint);
+            labelWidths = SliderStyle.newWidthCache(labelPaint);
+            androidCanvas.setTextPaint(labelPaint);
+        }
+        return labelPaint;
+    }
+
+    /**
+     * 按字号和字体算出底部留给文字的高度,只在文字样式变化时调用
+     */
+    private void updateLabelBand() {
+        if (!showLabels) {
+            labelBand = 0;
+            return;
+        }
+        labelPaint.getFontMetrics(labelMetrics);
+        labelBand = labelPadding + (int) Math.ceil(labelMetrics.descent - labelMetrics.ascent);
+        labelBaseline = labelPadding - labelMetrics.ascent;
+    }
+
+    private void onLabelMetricsChanged() {
+        updateLabelBand();
+        requestLayout();
+        updateGeometry();
+        invalidate();
     }
 
     public float getBarHeightPercent() {
-        return barHeightPercent;
+        return model.getBarHeightPercent();
     }
 
     public void setBarHeightPercent(float percent) {
-        if (percent <= 0.0 || percent > 1.0) {
-            throw new IllegalArgumentException("Bar height percent must be in (0, 1]");
-        }
-        this.barHeightPercent = percent;
+        model.setBarHeightPercent(percent);
+        updateGeometry();
     }
 
     public float getSlotRadiusPercent() {
-        return slotRadiusPercent;
+        return model.getSlotRadiusPercent();
     }
 
     public void setSlotRadiusPercent(float percent) {
-        if (percent <= 0.0 || percent > 1.0) {
-            throw new IllegalArgumentException("Slot radius percent must be in (0, 1]");
-        }
-        this.slotRadiusPercent = percent;
+        model.setSlotRadiusPercent(percent);
+        updateGeometry();
     }
 
     public float getSliderRadiusPercent() {
-        return sliderRadiusPercent;
+        return model.getSliderRadiusPercent();
     }
 
     public void setSliderRadiusPercent(float percent) {
-        if (percent <= 0.0 || percent > 1.0) {
-            throw new IllegalArgumentException("Slider radius percent must be in (0, 1]");
-        }
-        this.sliderRadiusPercent = percent;
+        model.setSliderRadiusPercent(percent);
+        updateGeometry();
     }
 
-    @AnimateMethod
+    /**
+     * 设置水波纹当前的半径,正常情况下由松手时的动画驱动
+     */
     public void setRadius(final float radius) {
-        rippleRadius = radius;
-        if (rippleRadius > 0) {
-            RadialGradient radialGradient = new RadialGradient(
-                    downX,
-                    downY,
-                    rippleRadius * 3,
-                    Color.BLACK,
-                    Color.TRANSPARENT,
-                    Shader.TileMode.MIRROR
-            );
-            ripplePaint.setShader(radialGradient);
+        ripple().setRadius(radius);
+    }
+
+    private RippleEffect ripple() {
+        if (ripple == null) {
+            ripplePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+            ripple = new RippleEffect(this, ripplePaint, RIPPLE_ANIMATION_DURATION_MS);
         }
-        invalidate();
+        return ripple;
     }
 
     public void setOnSlideListener(OnSlideListener listener) {
@@ -245,40 +681,166 @@ public class RangeSliderView extends View {
     }
 
     /**
-     * Perform all the calculation before drawing, should only run once
+     * 区间模式下松手后选中的区间变化时回调
      */
-    private void preComputeDrawingPosition() {
-        int w = getWidthWithPadding();
-        int h = getHeightWithPadding();
+    public void setOnRangeSlideListener(OnRangeSlideListener listener) {
+        this.rangeListener = listener;
+    }
+
+    public boolean isRangeMode() {
+        return model.isRangeMode();
+    }
 
-        /** 每两个点之间的空间 */
-        int spacing = w / rangeCount;
+    /**
+     * 切换到两个滑块的区间模式,默认选中全部
+     */
+    public void setRangeMode(boolean rangeMode) {
+        if (model.isRangeMode() == rangeMode) {
+            return;
+        }
+        model.setRangeMode(rangeMode);
+        if (rangeMode) {
+            setRange(0, model.getRangeCount() - 1);
+        } else {
+            invalidate();
+        }
+    }
+
+    public int getMinIndex() {
+        return model.getMinIndex();
+    }
+
+    public int getMaxIndex() {
+        return model.getMaxIndex();
+    }
 
-        /** 垂直居中显示 */
-        int y = getPaddingTop() + h / 2;
-        currentSlidingY = y;
-        selectedSlotY = y;
-        int x = getPaddingLeft() + (spacing / 2);
+    /**
+     * 设置区间模式下选中的区间,minIndex 可以等于 maxIndex
+     */
+    public void setRange(int minIndex, int maxIndex) {
+        model.setRange(minIndex, maxIndex);
+        minSlidingX = geometry.getSlotX(minIndex);
+        maxSlidingX = geometry.getSlotX(maxIndex);
+        saveToStore();
+        invalidate();
+    }
+
+    /**
+     * 在 executor 上处理滑动事件,处理不过来时只保留最新的下标,
+     * {@link ConflatingDispatcher.Callback#onResult(int, Object)} 回到 UI 线程。
+     * 传 null 关闭
+     */
+    public <T> void setOnSlideListener(Executor executor, ConflatingDispatcher.Callback<T> callback) {
+        if (executor == null || callback == null) {
+            asyncDispatcher = null;
+            return;
+        }
+        asyncDispatcher = new ConflatingDispatcher<T>(executor, MainThreadExecutor.INSTANCE, callback);
+    }
+
+    /**
+     * 选中的点变化时回调下标和对应的数值,数值来自 {@link #setValues(SliderValues)}
+     * 或绑定的 {@link QuantileSlots}
+     */
+    public void setOnValueSlideListener(OnValueSlideListener listener) {
+        this.valueListener = listener;
+    }
 
-        /** 保存每个位置点的坐标 */
-        for (int i = 0; i < rangeCount; ++i) {
-            slotPositions[i] = x;
-            if (i == currentIndex) {
-                currentSlidingX = x;
-                selectedSlotX = x;
+    /**
+     * 拖动过程中持续回调预览值,每帧最多一次;松手后的 onSlide 与 {@link OnSlideListener} 相同
+     */
+    public void setOnSlideStreamListener(OnSlideStreamListener listener) {
+        this.streamListener = listener;
+        if (listener == null) {
+            if (previewTicker != null) {
+                previewTicker.cancel();
             }
-            x += spacing;
+        } else if (previewTicker == null) {
+            previewTicker = new FrameTicker(this, new FrameTicker.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    dispatchPreview(currentSlidingX);
+                }
+            });
+        }
+    }
+
+    /**
+     * 点很密时相邻两个圆点至少相隔的像素数,更密的点会被抽掉,
+     * 密到连成一条带时改为画线段
+     */
+    public void setMinMarkSpacing(float px) {
+        renderPlan.setMinMarkSpacing(px);
+        invalidate();
+    }
+
+    public float getMinMarkSpacing() {
+        return renderPlan.getMinMarkSpacing();
+    }
+
+    /**
+     * 开启性能统计,传 null 关闭
+     */
+    public void setMetrics(SliderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public SliderMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (metrics != null) {
+            metrics.onInvalidate();
         }
     }
 
+    @Override
+    public void invalidate(int l, int t, int r, int b) {
+        super.invalidate(l, t, r, b);
+        if (metrics != null) {
+            metrics.onInvalidate();
+        }
+    }
+
+    /**
+     * 只重绘滑块从 fromX 移动到 toX 扫过的区域,包括两者之间填充的横线和圆点
+     */
+    private void invalidateThumbRange(float fromX, float toX) {
+        float extent = Math.max(radius * 1.5f, Math.max(slotRadius, geometry.getBarHeight() >> 1))
+                + DEFAULT_PAINT_STROKE_WIDTH + 1;
+        float centerY = geometry.getCenterY();
+        invalidate((int) Math.floor(Math.min(fromX, toX) - extent), (int) Math.floor(centerY - extent),
+                (int) Math.ceil(Math.max(fromX, toX) + extent), (int) Math.ceil(centerY + extent));
+    }
+
+    /**
+     * 把滑块放回选中的点上
+     */
+    private void resetThumbPositions() {
+        currentSlidingY = geometry.getCenterY();
+        selectedSlotY = currentSlidingY;
+        currentSlidingX = geometry.getSlotX(model.getCurrentIndex());
+        selectedSlotX = currentSlidingX;
+        minSlidingX = geometry.getSlotX(model.getMinIndex());
+        maxSlidingX = geometry.getSlotX(model.getMaxIndex());
+    }
+
     //设置初始化时的坐标
     public void setInitialIndex(int index) {
-        if (index < 0 || index >= rangeCount) {
-            throw new IllegalArgumentException("Attempted to set index=" + index + " out of range [0," + rangeCount + "]");
+        model.setCurrentIndex(index);
+        // 正在拖动或吸附时先停下,否则下一帧会把滑块拉回原来的位置
+        if (gotSlot) {
+            releaseVelocityTracker();
+            cancelDrag(SystemClock.uptimeMillis());
         }
-        currentIndex = index;
-        currentSlidingX = selectedSlotX = slotPositions[currentIndex];
+        stopSnap(true);
+        currentSlidingX = selectedSlotX = geometry.getSlotX(index);
+        saveToStore();
         invalidate();
+        onThumbIdle();
     }
 
     public int getFilledColor() {
@@ -307,6 +869,36 @@ public class RangeSliderView extends View {
     public void setIcon(int imgResource) {
         drawImg = true;
         this.imgResource = imgResource;
+        // 新图片解码完之前画圆
+        setThumbBitmap(null);
+        thumbRequestSize = 0;
+        requestThumbBitmap();
+    }
+
+    /**
+     * 按当前半径向共享缓存请求滑块图片,缓存中没有时在后台解码,UI 线程上从不解码。
+     * 半径变化时重新请求,新图片到达之前继续画旧的
+     */
+    private void requestThumbBitmap() {
+        int size = (int) (radius * 3);
+        if (!drawImg || size <= 0 || size == thumbRequestSize) {
+            return;
+        }
+        thumbRequestSize = size;
+        Bitmap bitmap = ThumbBitmapCache.getInstance().acquireOrLoad(getResources(), imgResource, size, thumbCallback);
+        if (bitmap != null) {
+            setThumbBitmap(bitmap);
+        }
+    }
+
+    private void setThumbBitmap(Bitmap bitmap) {
+        ThumbBitmapCache.getInstance().release(thumbBitmap);
+        thumbBitmap = bitmap;
+        invalidate();
+    }
+
+    Bitmap getThumbBitmap() {
+        return thumbBitmap;
     }
 
     @Override
@@ -317,24 +909,19 @@ public class RangeSliderView extends View {
     private int measureHeight(int measureSpec) {
         int specMode = MeasureSpec.getMode(measureSpec);
         int specSize = MeasureSpec.getSize(measureSpec);
-        int result;
         if (specMode == MeasureSpec.EXACTLY) {
-            result = specSize;
+            return specSize;
+        }
+        final int height;
+        if (layoutHeight == ViewGroup.LayoutParams.WRAP_CONTENT) {
+            height = style.defaultHeight + labelBand;
+        } else if (layoutHeight == ViewGroup.LayoutParams.MATCH_PARENT) {
+            height = getMeasuredHeight();
         } else {
-            final int height;
-            if (layoutHeight == ViewGroup.LayoutParams.WRAP_CONTENT) {
-                height = dpToPx(getContext(), DEFAULT_HEIGHT_IN_DP);
-            } else if (layoutHeight == ViewGroup.LayoutParams.MATCH_PARENT) {
-                height = getMeasuredHeight();
-            } else {
-                height = layoutHeight;
-            }
-            result = height + getPaddingTop() + getPaddingBottom() + (2 * DEFAULT_PAINT_STROKE_WIDTH);
-            if (specMode == MeasureSpec.AT_MOST) {
-                result = Math.min(result, specSize);
-            }
+            height = layoutHeight;
         }
-        return result;
+        return SliderMeasure.resolve(specMode, specSize, SliderMeasure.desiredHeight(
+                height, getPaddingTop(), getPaddingBottom(), DEFAULT_PAINT_STROKE_WIDTH));
     }
 
     /**
@@ -344,79 +931,328 @@ public class RangeSliderView extends View {
     private int measureWidth(int measureSpec) {
         int specMode = MeasureSpec.getMode(measureSpec);
         int specSize = MeasureSpec.getSize(measureSpec);
-        int result;
-        if (specMode == MeasureSpec.EXACTLY) {
-            result = specSize;
+        return SliderMeasure.resolve(specMode, specSize, SliderMeasure.desiredWidth(
+                specSize, getPaddingLeft(), getPaddingRight(), DEFAULT_PAINT_STROKE_WIDTH, radius));
+    }
+
+    /**
+     * 吸附到最近的点,立即通知监听器,再用动画滑过去
+     *
+     * @param velocity    松手时的速度,像素/秒,不足以甩动
+     * @param eventTimeMs 松手事件的时间,SystemClock#uptimeMillis 时间基准
+     */
+    private void settle(float velocity, long eventTimeMs) {
+        commitIndex(geometry.nearestIndex(currentSlidingX));
+        if (currentSlidingX == selectedSlotX) {
+            downX = currentSlidingX;
+            downY = currentSlidingY;
+            animateRipple();
+            invalidateThumbRange(drawnSlidingX, currentSlidingX);
+            return;
+        }
+        // 至少按最小甩动速度起步,距离越短越快停下
+        startSnap(SnapMotion.duration(selectedSlotX - currentSlidingX,
+                Math.max(Math.abs(velocity), style.minFlingVelocity),
+                SETTLE_MIN_DURATION_NS, SETTLE_MAX_DURATION_NS), eventTimeMs, true);
+    }
+
+    /**
+     * 按松手时的速度预测滑块停下的点,立即通知监听器,再用动画滑过去
+     *
+     * @param velocity    像素/秒
+     * @param eventTimeMs 松手事件的时间,SystemClock#uptimeMillis 时间基准
+     */
+    private void fling(float velocity, long eventTimeMs) {
+        float predicted = clampToTrack(SnapMotion.predict(currentSlidingX, velocity, style.flingDeceleration));
+        commitIndex(geometry.nearestIndex(predicted));
+        startSnap(SnapMotion.duration(selectedSlotX - currentSlidingX, velocity,
+                FLING_MIN_DURATION_NS, FLING_MAX_DURATION_NS), eventTimeMs, true);
+    }
+
+    /**
+     * 从当前位置滑向选中的点。每个 View 只有一个帧回调,重复松手时复用,每帧不分配内存
+     */
+    private void startSnap(long durationNanos, long eventTimeMs, boolean ripple) {
+        rippleAfterSnap = ripple;
+        snapMotion.start(currentSlidingX, selectedSlotX, durationNanos,
+                // 从松手的时刻开始算,和 Choreographer 的帧时间同一个时钟
+                TimeUnit.MILLISECONDS.toNanos(eventTimeMs));
+        if (snapTicker == null) {
+            snapTicker = new FrameTicker(this, new FrameTicker.Callback() {
+                @Override
+                public void doFrame(long frameTimeNanos) {
+                    stepSnap(frameTimeNanos);
+                }
+            });
+        }
+        snapTicker.post();
+        if (metrics != null) {
+            metrics.onAnimationStart();
+        }
+    }
+
+    private void stepSnap(long frameTimeNanos) {
+        float x = snapMotion.positionAt(frameTimeNanos);
+        invalidateThumbRange(drawnSlidingX, x);
+        currentSlidingX = x;
+        if (snapMotion.isRunning()) {
+            snapTicker.post();
         } else {
-            result = specSize + getPaddingLeft() + getPaddingRight() + (2 * DEFAULT_PAINT_STROKE_WIDTH) + (int) (2 * radius);
-            if (specMode == MeasureSpec.AT_MOST) {
-                result = Math.min(result, specSize);
+            if (rippleAfterSnap) {
+                downX = x;
+                downY = currentSlidingY;
+                animateRipple();
             }
+            onThumbIdle();
+        }
+    }
+
+    /**
+     * 停止松手后的动画
+     *
+     * @param jump 是否让滑块直接跳到目标点上
+     */
+    private void stopSnap(boolean jump) {
+        if (!snapMotion.isRunning()) {
+            return;
+        }
+        snapMotion.cancel();
+        snapTicker.cancel();
+        if (jump) {
+            invalidateThumbRange(drawnSlidingX, selectedSlotX);
+            currentSlidingX = selectedSlotX;
         }
-        return result;
     }
 
-    private void updateCurrentIndex() {
-        float min = Float.MAX_VALUE;
-        int j = 0;
-        for (int i = 0; i < rangeCount; ++i) {
-            float dx = Math.abs(currentSlidingX - slotPositions[i]);
-            if (dx < min) {
-                min = dx;
-                j = i;
+    /**
+     * 选中第 j 个点并通知监听器,不改变滑块画在哪里
+     */
+    private void commitIndex(int j) {
+        if (streamListener != null) {
+            // 还没送出的预览直接丢掉,最后一次预览停在吸附后的点上,并且一定在 onSlide 之前
+            previewTicker.cancel();
+            if (previewIndex >= 0) {
+                dispatchPreview(geometry.getSlotX(j));
             }
         }
-        if (j != currentIndex) {
-            if (listener != null) {
-                listener.onSlide(j);
+        previewIndex = -1;
+        previewFraction = -1;
+        if (j != model.getCurrentIndex()) {
+            if (listener != null || streamListener != null || asyncDispatcher != null
+                    || valueListener != null) {
+                dispatchSlide(j);
             }
         }
-        currentIndex = j;
-        currentSlidingX = slotPositions[j];
-        selectedSlotX = currentSlidingX;
-        downX = currentSlidingX;
+        model.setCurrentIndex(j);
+        selectedSlotX = geometry.getSlotX(j);
+        saveToStore();
+    }
+
+    /**
+     * 松手后把正在拖动的滑块吸附到最近的点上,不能越过另一个滑块
+     */
+    private void updateRange() {
+        int min = model.getMinIndex();
+        int max = model.getMaxIndex();
+        float fromX;
+        float toX;
+        if (activeThumb == SliderGeometry.THUMB_MIN) {
+            fromX = minSlidingX;
+            min = Math.min(geometry.nearestIndex(minSlidingX), max);
+            minSlidingX = toX = geometry.getSlotX(min);
+        } else {
+            fromX = maxSlidingX;
+            max = Math.max(geometry.nearestIndex(maxSlidingX), min);
+            maxSlidingX = toX = geometry.getSlotX(max);
+        }
+        if (min != model.getMinIndex() || max != model.getMaxIndex()) {
+            model.setRange(min, max);
+            saveToStore();
+            if (rangeListener != null) {
+                dispatchRangeSlide(min, max);
+            }
+        }
+        downX = toX;
         downY = currentSlidingY;
         animateRipple();
-        invalidate();
+        invalidateThumbRange(fromX, toX);
     }
 
-    private void animateRipple() {
-        ObjectAnimator animator = ObjectAnimator.ofFloat(this, "radius", 0, radius);
-        animator.setInterpolator(new AccelerateInterpolator());
-        animator.setDuration(RIPPLE_ANIMATION_DURATION_MS);
-        animator.start();
-        animator.addListener(new Animator.AnimatorListener() {
-            @Override
-            public void onAnimationStart(Animator animation) {
-
+    private void dispatchRangeSlide(int minIndex, int maxIndex) {
+        final SliderMetrics metrics = this.metrics;
+        long start = metrics != null ? metrics.beginListener() : 0;
+        try {
+            rangeListener.onRangeSlide(minIndex, maxIndex);
+        } finally {
+            if (metrics != null) {
+                metrics.endListener(start);
             }
+        }
+    }
 
-            @Override
-            public void onAnimationEnd(Animator animation) {
-                rippleRadius = 0;
+    /**
+     * 区间模式下拖动到 x,滑块不能越过另一个滑块
+     */
+    private void dragRangeThumb(float x) {
+        if (activeThumb == SliderGeometry.THUMB_EITHER) {
+            // 两个滑块重合时按拖动方向决定拖哪一个
+            if (x < minSlidingX) {
+                activeThumb = SliderGeometry.THUMB_MIN;
+            } else if (x > maxSlidingX) {
+                activeThumb = SliderGeometry.THUMB_MAX;
+            } else {
+                return;
             }
+        }
+        if (activeThumb == SliderGeometry.THUMB_MIN) {
+            x = Math.min(x, maxSlidingX);
+            invalidateThumbRange(drawnMinX, x);
+            minSlidingX = x;
+        } else {
+            x = Math.max(x, minSlidingX);
+            invalidateThumbRange(drawnMaxX, x);
+            maxSlidingX = x;
+        }
+    }
 
-            @Override
-            public void onAnimationCancel(Animator animation) {
+    private void dispatchSlide(int index) {
+        final SliderMetrics metrics = this.metrics;
+        long start = metrics != null ? metrics.beginListener() : 0;
+        try {
+            if (listener != null) {
+                listener.onSlide(index);
+            }
+            if (streamListener != null) {
+                streamListener.onSlide(index);
+            }
+            if (asyncDispatcher != null) {
+                asyncDispatcher.dispatch(index);
+            }
+            if (valueListener != null) {
+                valueListener.onValueSlide(index, valueAt(index));
+            }
+        } finally {
+            if (metrics != null) {
+                metrics.endListener(start);
+            }
+        }
+    }
 
+    /**
+     * 把 x 换算成最近的点和 [0, 1] 之间的比例,和上一次相同时不回调
+     */
+    private void dispatchPreview(float x) {
+        final OnSlideStreamListener streamListener = this.streamListener;
+        if (streamListener == null) {
+            return;
+        }
+        int index = geometry.nearestIndex(x);
+        float first = geometry.getFirstSlotX();
+        float span = geometry.getLastSlotX() - first;
+        float fraction = span > 0 ? Math.max(0f, Math.min(1f, (x - first) / span)) : 0f;
+        if (index == previewIndex && fraction == previewFraction) {
+            return;
+        }
+        previewIndex = index;
+        previewFraction = fraction;
+        final SliderMetrics metrics = this.metrics;
+        long start = metrics != null ? metrics.beginListener() : 0;
+        try {
+            streamListener.onSlidePreview(index, fraction);
+        } finally {
+            if (metrics != null) {
+                metrics.endListener(start);
             }
+        }
+    }
 
-            @Override
-            public void onAnimationRepeat(Animator animation) {
+    /**
+     * 手指移出第一个点和最后一个点之间时,滑块停在最近的一端
+     */
+    private float clampToTrack(float x) {
+        return Math.max(geometry.getFirstSlotX(), Math.min(geometry.getLastSlotX(), x));
+    }
 
-            }
-        });
+    private void animateRipple() {
+        if (metrics != null) {
+            metrics.onAnimationStart();
+        }
+        ripple().start(downX, downY, radius);
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        // 离开窗口时放弃了图片的引用,重新取回
+        requestThumbBitmap();
+        if (quantileSlots != null) {
+            quantileSlots.setListener(quantileListener);
+            // 离开窗口期间可能错过了更新
+            quantileTicker.post();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (ripple != null) {
+            ripple.cancel();
+        }
+        if (quantileSlots != null) {
+            // 数据流可能比 View 活得久,不再让它持有 View
+            quantileSlots.setListener(null);
+            quantileTicker.cancel();
+        }
+        if (previewTicker != null) {
+            previewTicker.cancel();
+        }
+        stopSnap(true);
+        releaseVelocityTracker();
+        // 不再持有共享缓存中的图片,被淘汰后才能进复用池;还在解码的结果到达时尺寸对不上,会被直接释放
+        setThumbBitmap(null);
+        thumbRequestSize = 0;
+        super.onDetachedFromWindow();
     }
 
     @Override
     public boolean onTouchEvent(MotionEvent event) {
+        final SliderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            return handleTouchEvent(event);
+        }
+        boolean traced = metrics.beginTouch();
+        try {
+            return handleTouchEvent(event);
+        } finally {
+            metrics.endTouch(traced);
+        }
+    }
+
+    private boolean handleTouchEvent(MotionEvent event) {
         float y = event.getY();
         float x = event.getX();
         final int action = event.getActionMasked();
         switch (action) {
             case MotionEvent.ACTION_DOWN:
+                grabOffsetX = 0;
                 //判断是否点击在滑块范围内
-                gotSlot = isInSelectedSlot(x, y);
+                if (model.isRangeMode()) {
+                    activeThumb = geometry.pickThumb(minSlidingX, maxSlidingX, selectedSlotY, x, y);
+                    gotSlot = activeThumb != SliderGeometry.THUMB_NONE;
+                } else if (snapMotion.isRunning()) {
+                    // 按住正在滑动的滑块可以从当前位置接着拖,点在别处时滑块直接停到目标点上
+                    gotSlot = geometry.isInThumb(currentSlidingX, selectedSlotY, x, y);
+                    stopSnap(!gotSlot);
+                    if (gotSlot) {
+                        grabOffsetX = currentSlidingX - x;
+                    }
+                } else {
+                    gotSlot = isInSelectedSlot(x, y);
+                }
+                if (gotSlot && !model.isRangeMode()) {
+                    releaseVelocityTracker();
+                    velocityTracker = VelocityTracker.obtain();
+                    velocityTracker.addMovement(event);
+                }
                 downX = x;
                 downY = y;
                 break;
@@ -424,41 +1260,126 @@ public class RangeSliderView extends View {
             case MotionEvent.ACTION_MOVE:
                 //要点击滑块才能拖动
                 if (gotSlot) {
-                    if (x >= slotPositions[0] && x <= slotPositions[rangeCount - 1]) {
-                        currentSlidingX = x;
+                    float draggableX = clampToTrack(x + grabOffsetX);
+                    if (model.isRangeMode()) {
+                        dragRangeThumb(draggableX);
+                        if (metrics != null) {
+                            metrics.onTouchInvalidated(event.getEventTime());
+                        }
+                    } else {
+                        if (velocityTracker != null) {
+                            // 历史采样也会一起加入,速度按完整轨迹计算
+                            velocityTracker.addMovement(event);
+                        }
+                        currentSlidingX = draggableX;
                         currentSlidingY = y;
-                        invalidate();
+                        invalidateThumbRange(drawnSlidingX, draggableX);
+                        if (streamListener != null) {
+                            previewTicker.post();
+                        }
+                        if (metrics != null) {
+                            metrics.onTouchInvalidated(event.getEventTime());
+                        }
                     }
                 }
                 break;
 
             case MotionEvent.ACTION_UP:
-                if (gotSlot) {
+                if (gotSlot && model.isRangeMode()) {
                     gotSlot = false;
-                    currentSlidingX = x;
+                    if (activeThumb != SliderGeometry.THUMB_EITHER) {
+                        updateRange();
+                    }
+                    activeThumb = SliderGeometry.THUMB_NONE;
+                    if (metrics != null) {
+                        metrics.onTouchInvalidated(event.getEventTime());
+                    }
+                } else if (gotSlot) {
+                    gotSlot = false;
+                    currentSlidingX = clampToTrack(x + grabOffsetX);
                     currentSlidingY = y;
-                    updateCurrentIndex();
+                    float velocity = 0;
+                    if (velocityTracker != null) {
+                        velocityTracker.addMovement(event);
+                        velocityTracker.computeCurrentVelocity(1000, style.maxFlingVelocity);
+                        velocity = velocityTracker.getXVelocity();
+                        releaseVelocityTracker();
+                    }
+                    if (Math.abs(velocity) >= style.minFlingVelocity) {
+                        fling(velocity, event.getEventTime());
+                    } else {
+                        settle(velocity, event.getEventTime());
+                    }
+                    if (metrics != null) {
+                        metrics.onTouchInvalidated(event.getEventTime());
+                    }
+                }
+                break;
+
+            case MotionEvent.ACTION_CANCEL:
+                releaseVelocityTracker();
+                if (gotSlot) {
+                    cancelDrag(event.getEventTime());
                 }
                 break;
         }
+        if (action == MotionEvent.ACTION_UP || action == MotionEvent.ACTION_CANCEL) {
+            onThumbIdle();
+        }
         return true;
     }
 
-    private boolean isInSelectedSlot(float x, float y) {
-        return
-                selectedSlotX - radius <= x && x <= selectedSlotX + radius &&
-                        selectedSlotY - radius <= y && y <= selectedSlotY + radius;
+    /**
+     * 手指离开并且滑块停下后调用,换上拖动期间到达的分位数
+     */
+    private void onThumbIdle() {
+        if (quantileSlots != null) {
+            applyQuantiles();
+        }
+    }
+
+    /**
+     * 拖动被取消(例如父 View 拦截去滚动)时不选中新的点,滑块滑回原来选中的点,不播放水波纹
+     */
+    private void cancelDrag(long eventTimeMs) {
+        gotSlot = false;
+        if (previewTicker != null) {
+            previewTicker.cancel();
+        }
+        if (previewIndex >= 0) {
+            // 最后一次预览回到原来选中的点
+            dispatchPreview(selectedSlotX);
+        }
+        previewIndex = -1;
+        previewFraction = -1;
+        if (model.isRangeMode()) {
+            activeThumb = SliderGeometry.THUMB_NONE;
+            float minX = geometry.getSlotX(model.getMinIndex());
+            float maxX = geometry.getSlotX(model.getMaxIndex());
+            invalidateThumbRange(drawnMinX, minX);
+            invalidateThumbRange(drawnMaxX, maxX);
+            minSlidingX = minX;
+            maxSlidingX = maxX;
+            return;
+        }
+        if (currentSlidingX == selectedSlotX) {
+            return;
+        }
+        startSnap(SnapMotion.duration(selectedSlotX - currentSlidingX, style.minFlingVelocity,
+                SETTLE_MIN_DURATION_NS, SETTLE_MAX_DURATION_NS), eventTimeMs, false);
     }
 
-    private void drawEmptySlots(Canvas canvas) {
-        paint.setColor(emptyColor);
-        int h = getHeightWithPadding();
-        int y = getPaddingTop() + (h >> 1);
-        for (int i = 0; i < rangeCount; ++i) {
-            canvas.drawCircle(slotPositions[i], y, slotRadius, paint);
+    private void releaseVelocityTracker() {
+        if (velocityTracker != null) {
+            velocityTracker.recycle();
+            velocityTracker = null;
         }
     }
 
+    private boolean isInSelectedSlot(float x, float y) {
+        return geometry.isInThumb(selectedSlotX, selectedSlotY, x, y);
+    }
+
     public int getHeightWithPadding() {
         return getHeight() - getPaddingBottom() - getPaddingTop();
     }
@@ -467,96 +1388,122 @@ public class RangeSliderView extends View {
         return getWidth() - getPaddingLeft() - getPaddingRight();
     }
 
-    private void drawFilledSlots(Canvas canvas) {
-        paint.setColor(filledColor);
-        int h = getHeightWithPadding();
-        int y = getPaddingTop() + (h >> 1);
-        for (int i = 0; i < rangeCount; ++i) {
-            if (slotPositions[i] <= currentSlidingX) {
-                canvas.drawCircle(slotPositions[i], y, slotRadius, paint);
-            }
-        }
+    /**
+     * 把横线、圆点和滑块画到 canvas 上,不包括水波纹。
+     * 可以传入 {@link githubzzx752904457.com.rangesliderview.core.RecordingCanvas} 检查画了什么
+     *
+     * @return 绘制调用的次数
+     */
+    public int drawFrame(SliderCanvas canvas) {
+        return drawFrame(canvas, null);
     }
 
-    private void drawBar(Canvas canvas, int from, int to, int color) {
-        paint.setColor(color);
-        int h = getHeightWithPadding();
-        int half = (barHeight >> 1);
-        int y = getPaddingTop() + (h >> 1);
-        canvas.drawRect(from, y - half, to, y + half, paint);
+    /**
+     * @param clip 为 null 时画全部文字,否则只画和它相交的文字
+     */
+    private int drawFrame(SliderCanvas canvas, Rect clip) {
+        if (model.isRangeMode()) {
+            renderPlan.compile(geometry, minSlidingX, maxSlidingX,
+                    filledColor, emptyColor, DEFAULT_PAINT_STROKE_WIDTH);
+        } else {
+            renderPlan.compile(geometry, currentSlidingX, filledColor, emptyColor, DEFAULT_PAINT_STROKE_WIDTH);
+        }
+        int ops = 0;
+        /** 数据分布画在横线后面 */
+        if (histogram != null) {
+            ops += histogram.draw(canvas, geometry, getPaddingTop(), histogramColor);
+        }
+        /**
+         * 画横线和圆点。没选中的部分不再录制成 Picture 缓存:缓存的背景上还要再盖一层选中的部分,
+         * 拖动时选中的一段每帧画两次;编译好的操作互不重叠,每帧只有几次调用,重新编译也不分配内存
+         */
+        ops += renderPlan.draw(canvas);
+        /** 文字画在滑块下面,滑块压住时不会挡住滑块 */
+        if (showLabels) {
+            ops += drawLabels(canvas, clip);
+        }
+
+        int y0 = geometry.getCenterY();
+        float thumbRadius = radius * 1.5f;
+        if (model.isRangeMode()) {
+            canvas.drawThumb(minSlidingX, y0, thumbRadius, filledColor);
+            canvas.drawThumb(maxSlidingX, y0, thumbRadius, filledColor);
+            ops += 2;
+        } else {
+            canvas.drawThumb(currentSlidingX, y0, thumbRadius, filledColor);
+            ++ops;
+        }
+        return ops;
     }
 
-//    private void drawRippleEffect(Canvas canvas) {
-//        if (rippleRadius != 0) {
-//            canvas.save();
-//            ripplePaint.setColor(Color.GRAY);
-//            outerPath.reset();
-//            outerPath.addCircle(downX, downY, rippleRadius, Path.Direction.CW);
-//            canvas.clipPath(outerPath);
-//            innerPath.reset();
-//            innerPath.addCircle(downX, downY, rippleRadius / 3, Path.Direction.CW);
-//            canvas.clipPath(innerPath, Region.Op.DIFFERENCE);
-//            canvas.drawCircle(downX, downY, rippleRadius, ripplePaint);
-//            canvas.restore();
-//        }
-//    }
+    /**
+     * 排版只在几何信息、数值或文字样式变化后重新计算,每一帧只画裁剪区域内的文字
+     */
+    private int drawLabels(SliderCanvas canvas, Rect clip) {
+        int top = getHeight() - getPaddingBottom() - labelBand;
+        // 拖动时只重画滑块附近,文字不在重画的区域内
+        if (clip != null && (clip.bottom <= top || clip.top >= top + labelBand)) {
+            return 0;
+        }
+        if (labelLayout.layout(geometry, values, labelWidths, labelPadding,
+                getPaddingLeft(), getWidth() - getPaddingRight()) == 0) {
+            return 0;
+        }
+        float left = clip != null ? clip.left : Float.NEGATIVE_INFINITY;
+        float right = clip != null ? clip.right : Float.POSITIVE_INFINITY;
+        return labelLayout.draw(canvas, top + labelBaseline, labelTextColor, left, right);
+    }
 
     @Override
     public void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        int w = getWidthWithPadding();
-        int h = getHeightWithPadding();
-        int spacing = w / rangeCount;
-        int border = (spacing >> 1);
-        int x0 = getPaddingLeft() + border;
-        int y0 = getPaddingTop() + (h >> 1);
-
-        /**画还没有选中的圆 */
-        drawEmptySlots(canvas);
-        /** 画已经选中的圆 */
-        drawFilledSlots(canvas);
-
-        /**画还没有选中的横线 */
-        drawBar(canvas, (int) slotPositions[0], (int) (slotPositions[rangeCount - 1] + slotRadius * 4), emptyColor);
-
-        /**画已经选中的横线 */
-        drawBar(canvas, (int) (x0 - slotRadius * 4), (int) (currentSlidingX), filledColor);
-
-
-        if (drawImg) {
-            /** 画拖动的图片 */
-            Bitmap bitmap = BitmapFactory.decodeResource(getResources(), imgResource);
-            int width = bitmap.getWidth();
-            int height = bitmap.getHeight();
-            // 设置想要的大小
-            int newWidth = (int) (radius * 3);
-            int newHeight = (int) (radius * 3);
-            // 计算缩放比例
-            float scaleWidth = ((float) newWidth) / width;
-            float scaleHeight = ((float) newHeight) / height;
-            // 取得想要缩放的matrix参数
-            Matrix matrix = new Matrix();
-            matrix.postScale(scaleWidth, scaleHeight);
-            // 得到新的图片
-            bitmap = Bitmap.createBitmap(bitmap, 0, 0, width, height, matrix,
-                    true);
-            canvas.drawBitmap(bitmap, currentSlidingX - bitmap.getWidth() / 2, y0 - bitmap.getHeight() / 2, paint);
-            bitmap.recycle();
-        } else {
-            /** 画拖动的圆 */
-            paint.setColor(filledColor);
-            canvas.drawCircle(currentSlidingX, y0, radius * 1.5f, paint);
+        final SliderMetrics metrics = this.metrics;
+        if (metrics == null) {
+            drawSlider(canvas);
+            return;
+        }
+        long start = metrics.beginDraw();
+        try {
+            drawSlider(canvas);
+        } finally {
+            metrics.endDraw(start);
+        }
+    }
+
+    private void drawSlider(Canvas canvas) {
+        drawnSlidingX = currentSlidingX;
+        drawnMinX = minSlidingX;
+        drawnMaxX = maxSlidingX;
+
+        int ops;
+        Rect clip = null;
+        if (showLabels && canvas.getClipBounds(clipBounds)) {
+            clip = clipBounds;
+        }
+        androidCanvas.begin(canvas, drawImg ? thumbBitmap : null);
+        try {
+            ops = drawFrame(androidCanvas, clip);
+        } finally {
+            androidCanvas.end();
         }
 
+        /** 画松手时的水波纹 */
+        if (ripple != null && ripple.draw(canvas)) {
+            ++ops;
+        }
 
-//        drawRippleEffect(canvas);
+        if (metrics != null) {
+            metrics.onDrawOps(ops);
+        }
     }
 
     @Override
     public Parcelable onSaveInstanceState() {
         Parcelable superState = super.onSaveInstanceState();
         SavedState ss = new SavedState(superState);
-        ss.saveIndex = this.currentIndex;
+        ss.saveIndex = model.getCurrentIndex();
+        ss.saveMinIndex = model.getMinIndex();
+        ss.saveMaxIndex = model.getMaxIndex();
         return ss;
     }
 
@@ -568,12 +1515,17 @@ public class RangeSliderView extends View {
         }
         SavedState ss = (SavedState) state;
         super.onRestoreInstanceState(ss.getSuperState());
-        this.currentIndex = ss.saveIndex;
+        // 配置变化或新的布局可能减少了点数
+        applyState(ss.saveIndex, ss.saveMinIndex, ss.saveMaxIndex);
     }
 
     static class SavedState extends BaseSavedState {
         int saveIndex;
 
+        int saveMinIndex;
+
+        int saveMaxIndex;
+
         SavedState(Parcelable superState) {
             super(superState);
         }
@@ -581,12 +1533,16 @@ public class RangeSliderView extends View {
         private SavedState(Parcel in) {
             super(in);
             this.saveIndex = in.readInt();
+            this.saveMinIndex = in.readInt();
+            this.saveMaxIndex = in.readInt();
         }
 
         @Override
         public void writeToParcel(Parcel out, int flags) {
             super.writeToParcel(out, flags);
             out.writeInt(this.saveIndex);
+            out.writeInt(this.saveMinIndex);
+            out.writeInt(this.saveMaxIndex);
         }
 
         public static final Creator<SavedState> CREATOR =
@@ -619,6 +1575,21 @@ public class RangeSliderView extends View {
         return (int) (dp * context.getResources().getDisplayMetrics().density);
     }
 
+    /**
+     * 把结果交回 UI 线程
+     */
+    private static final class MainThreadExecutor implements Executor {
+
+        static final MainThreadExecutor INSTANCE = new MainThreadExecutor();
+
+        private final Handler handler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            handler.post(command);
+        }
+    }
+
     /**
      * 拖动滑块的回调
      */
@@ -631,4 +1602,44 @@ public class RangeSliderView extends View {
          */
         void onSlide(int index);
     }
+
+    /**
+     * 区间模式下拖动滑块的回调
+     */
+    public interface OnRangeSlideListener {
+
+        /**
+         * 当松手后选中的区间变化时调用
+         *
+         * @param minIndex 左边滑块的下标
+         * @param maxIndex 右边滑块的下标,minIndex <= maxIndex
+         */
+        void onRangeSlide(int minIndex, int maxIndex);
+    }
+
+    /**
+     * 选中的点变化时带上数值的回调
+     */
+    public interface OnValueSlideListener {
+
+        /**
+         * @param index 取值范围是 [0, rangeCount - 1]
+         * @param value 这个点对应的数值,没有设置数值时等于 index
+         */
+        void onValueSlide(int index, double value);
+    }
+
+    /**
+     * 拖动过程中的预览回调,松手后仍然会调用 {@link #onSlide(int)}
+     */
+    public interface OnSlideStreamListener extends OnSlideListener {
+
+        /**
+         * 拖动时调用,每帧最多一次,值没有变化时不调用
+         *
+         * @param index    离滑块最近的点,取值范围是 [0, rangeCount - 1]
+         * @param fraction 滑块在第一个点和最后一个点之间的比例,取值范围是 [0, 1]
+         */
+        void onSlidePreview(int index, float fraction);
+    }
 }
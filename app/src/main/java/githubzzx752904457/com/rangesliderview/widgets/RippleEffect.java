@@ -0,0 +1,117 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.animation.Animator;
+import android.animation.AnimatorListenerAdapter;
+import android.animation.ValueAnimator;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RadialGradient;
+import android.graphics.Shader;
+import android.view.View;
+import android.view.animation.AccelerateInterpolator;
+
+/**
+ * 松手时的水波纹动画。
+ * <p>
+ * 动画和渐变只创建一次:渐变按最大半径预先生成,每一帧只改 Matrix 做缩放和平移;
+ * 连续点击时直接从头重新播放,不会叠加多个动画。
+ * 波纹是内径为 radius / 3、外径为 radius 的圆环,用描边画出来,不需要 clipPath。
+ */
+final class RippleEffect implements ValueAnimator.AnimatorUpdateListener {
+
+    private final View view;
+
+    private final Paint paint;
+
+    private final ValueAnimator animator;
+
+    private final Matrix shaderMatrix = new Matrix();
+
+    private RadialGradient shader;
+
+    private float shaderRadius;
+
+    private float centerX;
+
+    private float centerY;
+
+    private float maxRadius;
+
+    private float radius;
+
+    RippleEffect(View view, Paint paint, long duration) {
+        this.view = view;
+        this.paint = paint;
+        paint.setStyle(Paint.Style.STROKE);
+
+        animator = ValueAnimator.ofFloat(0f, 1f);
+        animator.setDuration(duration);
+        animator.setInterpolator(new AccelerateInterpolator());
+        animator.addUpdateListener(this);
+        animator.addListener(new AnimatorListenerAdapter() {
+            @Override
+            public void onAnimationEnd(Animator animation) {
+                setRadius(0);
+            }
+        });
+    }
+
+    /**
+     * 从 (x, y) 开始播放,正在播放时会从头重新开始
+     */
+    void start(float x, float y, float maxRadius) {
+        // 先停掉旧的波纹,让它在原来的位置上被擦除
+        animator.cancel();
+        centerX = x;
+        centerY = y;
+        this.maxRadius = maxRadius;
+        if (maxRadius <= 0) {
+            return;
+        }
+        if (shader == null || shaderRadius != maxRadius) {
+            shaderRadius = maxRadius;
+            shader = new RadialGradient(0, 0, maxRadius * 3,
+                    Color.BLACK, Color.TRANSPARENT, Shader.TileMode.MIRROR);
+        }
+        animator.start();
+    }
+
+    void cancel() {
+        animator.cancel();
+    }
+
+    @Override
+    public void onAnimationUpdate(ValueAnimator animation) {
+        setRadius(maxRadius * animation.getAnimatedFraction());
+    }
+
+    void setRadius(float radius) {
+        this.radius = radius;
+        if (radius > 0 && shader != null) {
+            float scale = radius / shaderRadius;
+            shaderMatrix.setScale(scale, scale);
+            shaderMatrix.postTranslate(centerX, centerY);
+            shader.setLocalMatrix(shaderMatrix);
+            paint.setShader(shader);
+        }
+        // 波纹的外径不超过 maxRadius,只重绘这一块
+        float extent = maxRadius + 1;
+        view.invalidate((int) Math.floor(centerX - extent), (int) Math.floor(centerY - extent),
+                (int) Math.ceil(centerX + extent), (int) Math.ceil(centerY + extent));
+    }
+
+    /**
+     * @return 是否画了波纹
+     */
+    boolean draw(Canvas canvas) {
+        if (radius <= 0 || shader == null) {
+            return false;
+        }
+        float inner = radius / 3;
+        paint.setStrokeWidth(radius - inner);
+        canvas.drawCircle(centerX, centerY, (radius + inner) / 2, paint);
+        return true;
+    }
+}
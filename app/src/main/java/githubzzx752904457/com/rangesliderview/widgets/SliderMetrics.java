@@ -0,0 +1,195 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import githubzzx752904457.com.rangesliderview.core.LatencyRecorder;
+import githubzzx752904457.com.rangesliderview.core.LatencyStats;
+
+/**
+ * {@link RangeSliderView} 的性能统计,通过 {@link RangeSliderView#setMetrics(SliderMetrics)} 开启。
+ * <p>
+ * 未设置时 View 只多一次判空,不产生任何开销。多个 View 可以共用同一个实例。
+ */
+public class SliderMetrics {
+
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final String SECTION_DRAW = "RangeSliderView#onDraw";
+
+    private static final String SECTION_TOUCH = "RangeSliderView#onTouchEvent";
+
+    private static final String SECTION_LISTENER = "RangeSliderView#onSlide";
+
+    private final LatencyRecorder drawRecorder;
+
+    private final LatencyRecorder touchRecorder;
+
+    private final LatencyRecorder listenerRecorder;
+
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private final AtomicLong animations = new AtomicLong();
+
+    private final AtomicLong drawOps = new AtomicLong();
+
+    private volatile boolean traceEnabled;
+
+    public SliderMetrics() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity 每项指标保留的样本数
+     */
+    public SliderMetrics(int capacity) {
+        drawRecorder = new LatencyRecorder(capacity);
+        touchRecorder = new LatencyRecorder(capacity);
+        listenerRecorder = new LatencyRecorder(capacity);
+    }
+
+    /**
+     * 开启后在 systrace 中输出 onDraw / onTouchEvent / onSlide 区段,需要 API 18+
+     */
+    public void setTraceEnabled(boolean enabled) {
+        traceEnabled = enabled;
+    }
+
+    public boolean isTraceEnabled() {
+        return traceEnabled;
+    }
+
+    /**
+     * @return 交给 {@link #endDraw(long)} 的 token:开始时间,最低位记录是否开始了 trace 区段
+     */
+    long beginDraw() {
+        return begin(SECTION_DRAW);
+    }
+
+    void endDraw(long token) {
+        end(drawRecorder, token);
+    }
+
+    /**
+     * @return 是否开始了 trace 区段,交给 {@link #endTouch(boolean)}
+     */
+    boolean beginTouch() {
+        return beginSection(SECTION_TOUCH);
+    }
+
+    /**
+     * MotionEvent 的时间只精确到毫秒,记录的延迟单位仍是纳秒,但都是整毫秒
+     *
+     * @param eventTime MotionEvent#getEventTime(),与 SystemClock.uptimeMillis() 同一时间基准
+     */
+    void onTouchInvalidated(long eventTime) {
+        touchRecorder.record((SystemClock.uptimeMillis() - eventTime) * 1000000L);
+    }
+
+    void endTouch(boolean traced) {
+        endSection(traced);
+    }
+
+    long beginListener() {
+        return begin(SECTION_LISTENER);
+    }
+
+    void endListener(long token) {
+        end(listenerRecorder, token);
+    }
+
+    /**
+     * 开始时间的最低位换成是否开始了 trace 区段,耗时最多差 1 纳秒
+     */
+    private long begin(String section) {
+        boolean traced = beginSection(section);
+        long start = System.nanoTime();
+        return traced ? start | 1L : start & ~1L;
+    }
+
+    private static void end(LatencyRecorder recorder, long token) {
+        recorder.record(System.nanoTime() - (token & ~1L));
+        endSection((token & 1L) != 0);
+    }
+
+    void onDrawOps(int count) {
+        drawOps.addAndGet(count);
+    }
+
+    void onInvalidate() {
+        invalidations.incrementAndGet();
+    }
+
+    void onAnimationStart() {
+        animations.incrementAndGet();
+    }
+
+    /**
+     * 开关只在这里读一次,区段中途切换时结束的一侧仍和开始时一致,beginSection 和 endSection 总是成对
+     *
+     * @return 是否开始了区段
+     */
+    private boolean beginSection(String name) {
+        if (traceEnabled && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.beginSection(name);
+            return true;
+        }
+        return false;
+    }
+
+    private static void endSection(boolean traced) {
+        if (traced && Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+            Trace.endSection();
+        }
+    }
+
+    /** 每帧 onDraw 的耗时 */
+    public LatencyStats getDrawStats() {
+        return drawRecorder.stats();
+    }
+
+    /** 从触摸事件产生到调用 invalidate 的延迟,单位纳秒但只精确到毫秒,见 {@link #onTouchInvalidated(long)} */
+    public LatencyStats getTouchStats() {
+        return touchRecorder.stats();
+    }
+
+    /** OnSlideListener#onSlide 的执行耗时 */
+    public LatencyStats getListenerStats() {
+        return listenerRecorder.stats();
+    }
+
+    /**
+     * @return 平均每帧向 Canvas 提交的绘制调用数
+     */
+    public double getAverageDrawOpsPerFrame() {
+        long frames = drawRecorder.getCount();
+        return frames == 0 ? 0 : (double) drawOps.get() / frames;
+    }
+
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+
+    public long getAnimationCount() {
+        return animations.get();
+    }
+
+    public void reset() {
+        drawRecorder.reset();
+        touchRecorder.reset();
+        listenerRecorder.reset();
+        invalidations.set(0);
+        animations.set(0);
+        drawOps.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return "draw{" + getDrawStats() + "} touch{" + getTouchStats() + "} listener{" + getListenerStats()
+                + "} opsPerFrame=" + getAverageDrawOpsPerFrame()
+                + " invalidations=" + getInvalidationCount() + " animations=" + getAnimationCount();
+    }
+}
@@ -0,0 +1,289 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.ViewConfiguration;
+
+import java.util.ArrayList;
+
+import githubzzx752904457.com.rangesliderview.R;
+import githubzzx752904457.com.rangesliderview.core.SliderModel;
+import githubzzx752904457.com.rangesliderview.core.TextWidthCache;
+
+/**
+ * 多个滑块共享的样式和绘制资源。
+ * <p>
+ * 配置相同的滑块引用同一个对象,画笔和按密度换算好的尺寸只创建一次,
+ * 每个滑块自己只保存下标、坐标等少量状态。
+ * 画笔只在 UI 线程绘制时使用,每次使用前都会重新设置颜色和线宽,所以可以共享。
+ * <p>
+ * 列表中的滑块可以先用 {@link #obtain(Context, int)} 取一次样式,再用
+ * {@link RangeSliderView#RangeSliderView(Context, SliderStyle)} 创建,不用每次都解析属性。
+ */
+public final class SliderStyle {
+
+    static final int DEFAULT_FILLED_COLOR = Color.parseColor("#FFA500");
+
+    static final int DEFAULT_EMPTY_COLOR = Color.parseColor("#C3C3C3");
+
+    /** 半透明,不抢横线和滑块的颜色 */
+    static final int DEFAULT_HISTOGRAM_COLOR = Color.parseColor("#66C3C3C3");
+
+    static final int DEFAULT_LABEL_TEXT_COLOR = Color.parseColor("#888888");
+
+    private static final int DEFAULT_HEIGHT_IN_DP = 50;
+
+    private static final int DEFAULT_LABEL_TEXT_SIZE_IN_SP = 12;
+
+    /** 刻度文字和横线之间、相邻两个文字之间至少留的距离 */
+    private static final int DEFAULT_LABEL_PADDING_IN_DP = 4;
+
+    /** 点很密时相邻两个圆点至少相隔的距离 */
+    private static final int DEFAULT_MIN_MARK_SPACING_IN_DP = 2;
+
+    /** 甩动后滑块的减速度,dp/秒² */
+    private static final int DEFAULT_FLING_DECELERATION_IN_DP = 2000;
+
+    /** 不同配置通常只有几种,超过后不再缓存 */
+    private static final int MAX_INTERNED = 16;
+
+    private static final ArrayList<SliderStyle> interned = new ArrayList<SliderStyle>();
+
+    final int rangeCount;
+
+    final int filledColor;
+
+    final int emptyColor;
+
+    final float barHeightPercent;
+
+    final float slotRadiusPercent;
+
+    final float sliderRadiusPercent;
+
+    final boolean rangeMode;
+
+    final int histogramColor;
+
+    final boolean showLabels;
+
+    final float labelTextSize;
+
+    final int labelTextColor;
+
+    final int labelPadding;
+
+    final float density;
+
+    final int defaultHeight;
+
+    final float minMarkSpacing;
+
+    final float flingDeceleration;
+
+    final int minFlingVelocity;
+
+    final int maxFlingVelocity;
+
+    /** 画滑块 */
+    final Paint thumbPaint;
+
+    /** 画横线,坐标已经包含描边 */
+    final Paint barPaint;
+
+    /** 画圆点,圆头描边,线宽为圆的直径 */
+    final Paint slotPaint;
+
+    /** 画数据分布的柱子,1 像素宽的平头描边 */
+    final Paint columnPaint;
+
+    /** 画刻度文字,水平居中 */
+    final Paint labelPaint;
+
+    /** labelPaint 测量过的文字宽度,使用这个样式的滑块共享 */
+    final TextWidthCache labelWidths;
+
+    private SliderStyle(Context context, int rangeCount, int filledColor, int emptyColor,
+                        float barHeightPercent, float slotRadiusPercent, float sliderRadiusPercent,
+                        boolean rangeMode, int histogramColor, boolean showLabels, float labelTextSize,
+                        int labelTextColor, int labelPadding) {
+        this.rangeCount = rangeCount;
+        this.filledColor = filledColor;
+        this.emptyColor = emptyColor;
+        this.barHeightPercent = barHeightPercent;
+        this.slotRadiusPercent = slotRadiusPercent;
+        this.sliderRadiusPercent = sliderRadiusPercent;
+        this.rangeMode = rangeMode;
+        this.histogramColor = histogramColor;
+        this.showLabels = showLabels;
+        this.labelTextSize = labelTextSize;
+        this.labelTextColor = labelTextColor;
+        this.labelPadding = labelPadding;
+
+        density = context.getResources().getDisplayMetrics().density;
+        defaultHeight = RangeSliderView.dpToPx(context, DEFAULT_HEIGHT_IN_DP);
+        minMarkSpacing = RangeSliderView.dpToPx(context, DEFAULT_MIN_MARK_SPACING_IN_DP);
+        flingDeceleration = RangeSliderView.dpToPx(context, DEFAULT_FLING_DECELERATION_IN_DP);
+        ViewConfiguration configuration = ViewConfiguration.get(context);
+        minFlingVelocity = configuration.getScaledMinimumFlingVelocity();
+        maxFlingVelocity = configuration.getScaledMaximumFlingVelocity();
+
+        thumbPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        thumbPaint.setStrokeWidth(RangeSliderView.DEFAULT_PAINT_STROKE_WIDTH);
+        thumbPaint.setStyle(Paint.Style.FILL_AND_STROKE);
+
+        barPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        barPaint.setStyle(Paint.Style.FILL);
+
+        slotPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        slotPaint.setStyle(Paint.Style.STROKE);
+        slotPaint.setStrokeCap(Paint.Cap.ROUND);
+
+        columnPaint = new Paint();
+        columnPaint.setStyle(Paint.Style.STROKE);
+        columnPaint.setStrokeWidth(1);
+        columnPaint.setStrokeCap(Paint.Cap.BUTT);
+
+        labelPaint = newLabelPaint(labelTextSize);
+        labelWidths = newWidthCache(labelPaint);
+    }
+
+    static Paint newLabelPaint(float textSize) {
+        Paint paint = new Paint(Paint.ANTI_ALIAS_FLAG);
+        paint.setTextAlign(Paint.Align.CENTER);
+        paint.setTextSize(textSize);
+        return paint;
+    }
+
+    static TextWidthCache newWidthCache(final Paint paint) {
+        return new TextWidthCache(new TextWidthCache.Measurer() {
+            @Override
+            public float measureText(String text) {
+                return paint.measureText(text);
+            }
+        });
+    }
+
+    /**
+     * 解析布局中的属性,配置相同时返回同一个对象
+     */
+    public static SliderStyle obtain(Context context, AttributeSet attrs) {
+        if (attrs == null) {
+            return obtain(context, (TypedArray) null);
+        }
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.RangeSliderView);
+        try {
+            return obtain(context, a);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * 从 style 资源中读取属性,配置相同时返回同一个对象
+     */
+    public static SliderStyle obtain(Context context, int styleResId) {
+        TypedArray a = context.obtainStyledAttributes(styleResId, R.styleable.RangeSliderView);
+        try {
+            return obtain(context, a);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    private static SliderStyle obtain(Context context, TypedArray a) {
+        int rangeCount = SliderModel.DEFAULT_RANGE_COUNT;
+        int filledColor = DEFAULT_FILLED_COLOR;
+        int emptyColor = DEFAULT_EMPTY_COLOR;
+        float barHeightPercent = SliderModel.DEFAULT_BAR_HEIGHT_PERCENT;
+        float slotRadiusPercent = SliderModel.DEFAULT_SLOT_RADIUS_PERCENT;
+        float sliderRadiusPercent = SliderModel.DEFAULT_SLIDER_RADIUS_PERCENT;
+        boolean rangeMode = false;
+        int histogramColor = DEFAULT_HISTOGRAM_COLOR;
+        boolean showLabels = false;
+        float labelTextSize = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                DEFAULT_LABEL_TEXT_SIZE_IN_SP, context.getResources().getDisplayMetrics());
+        int labelTextColor = DEFAULT_LABEL_TEXT_COLOR;
+        int labelPadding = RangeSliderView.dpToPx(context, DEFAULT_LABEL_PADDING_IN_DP);
+        if (a != null) {
+            rangeCount = a.getInt(
+                    R.styleable.RangeSliderView_rangeCount, SliderModel.DEFAULT_RANGE_COUNT);
+            filledColor = a.getColor(
+                    R.styleable.RangeSliderView_filledColor, DEFAULT_FILLED_COLOR);
+            emptyColor = a.getColor(
+                    R.styleable.RangeSliderView_emptyColor, DEFAULT_EMPTY_COLOR);
+            barHeightPercent = a.getFloat(
+                    R.styleable.RangeSliderView_barHeightPercent, SliderModel.DEFAULT_BAR_HEIGHT_PERCENT);
+            slotRadiusPercent = a.getFloat(
+                    R.styleable.RangeSliderView_slotRadiusPercent, SliderModel.DEFAULT_SLOT_RADIUS_PERCENT);
+            sliderRadiusPercent = a.getFloat(
+                    R.styleable.RangeSliderView_sliderRadiusPercent, SliderModel.DEFAULT_SLIDER_RADIUS_PERCENT);
+            rangeMode = a.getBoolean(R.styleable.RangeSliderView_rangeMode, false);
+            histogramColor = a.getColor(
+                    R.styleable.RangeSliderView_histogramColor, DEFAULT_HISTOGRAM_COLOR);
+            showLabels = a.getBoolean(R.styleable.RangeSliderView_showLabels, false);
+            labelTextSize = a.getDimension(R.styleable.RangeSliderView_labelTextSize, labelTextSize);
+            labelTextColor = a.getColor(R.styleable.RangeSliderView_labelTextColor, DEFAULT_LABEL_TEXT_COLOR);
+            labelPadding = a.getDimensionPixelSize(R.styleable.RangeSliderView_labelPadding, labelPadding);
+        }
+        float density = context.getResources().getDisplayMetrics().density;
+        synchronized (interned) {
+            for (int i = 0, n = interned.size(); i < n; ++i) {
+                SliderStyle style = interned.get(i);
+                if (style.rangeCount == rangeCount && style.filledColor == filledColor
+                        && style.emptyColor == emptyColor && style.barHeightPercent == barHeightPercent
+                        && style.slotRadiusPercent == slotRadiusPercent
+                        && style.sliderRadiusPercent == sliderRadiusPercent
+                        && style.rangeMode == rangeMode && style.histogramColor == histogramColor
+                        && style.showLabels == showLabels && style.labelTextSize == labelTextSize
+                        && style.labelTextColor == labelTextColor && style.labelPadding == labelPadding
+                        && style.density == density) {
+                    return style;
+                }
+            }
+            SliderStyle style = new SliderStyle(context, rangeCount, filledColor, emptyColor,
+                    barHeightPercent, slotRadiusPercent, sliderRadiusPercent, rangeMode, histogramColor,
+                    showLabels, labelTextSize, labelTextColor, labelPadding);
+            if (interned.size() < MAX_INTERNED) {
+                interned.add(style);
+            }
+            return style;
+        }
+    }
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public int getFilledColor() {
+        return filledColor;
+    }
+
+    public int getEmptyColor() {
+        return emptyColor;
+    }
+
+    public boolean isRangeMode() {
+        return rangeMode;
+    }
+
+    public int getHistogramColor() {
+        return histogramColor;
+    }
+
+    public boolean isShowLabels() {
+        return showLabels;
+    }
+
+    public float getLabelTextSize() {
+        return labelTextSize;
+    }
+
+    public int getLabelTextColor() {
+        return labelTextColor;
+    }
+}
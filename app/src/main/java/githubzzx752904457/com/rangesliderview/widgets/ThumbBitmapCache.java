@@ -0,0 +1,473 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.annotation.TargetApi;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 进程内共享的滑块图片缓存,按 (资源id, 目标尺寸, 屏幕密度) 缓存缩放好的图片,
+ * 所有 {@link RangeSliderView} 共用一份,总占用按字节数限制。
+ * <p>
+ * 解码时先读出原图尺寸,用 inSampleSize 和密度缩放直接解码到接近目标的大小,不再先解出原图再缩小。
+ * {@link #load} 在后台线程解码,结果在 UI 线程交回;同一张图正在解码时不会重复解码。
+ * <p>
+ * 缓存中的图片会被多个 View 同时引用,被淘汰时不做 recycle。通过 {@link #acquire}、{@link #load}
+ * 或 {@link #acquireOrLoad} 拿到的图片要在不用时 {@link #release},没有人引用且已经被淘汰的图片放进一个小的复用池,
+ * 后面解码时通过 inBitmap 复用它的内存(Android 4.4 以上)。
+ */
+public final class ThumbBitmapCache {
+
+    /** 默认最多占用进程最大内存的 1/32 */
+    private static final int DEFAULT_MEMORY_FRACTION = 32;
+
+    /** 复用池最多保留的图片数 */
+    private static final int MAX_POOL_SIZE = 4;
+
+    private static ThumbBitmapCache sInstance;
+
+    private final LruCache<Key, Entry> cache;
+
+    /** 缓存中或仍被 View 引用的图片 */
+    private final Map<Bitmap, Entry> entries = new IdentityHashMap<Bitmap, Entry>();
+
+    /** 可以通过 inBitmap 复用内存的图片,解码线程也会访问,用 this 同步 */
+    private final List<Bitmap> pool = new ArrayList<Bitmap>(MAX_POOL_SIZE);
+
+    /** 正在解码的图片和等待结果的回调,只在 UI 线程访问 */
+    private final Map<Key, List<Callback>> pending = new HashMap<Key, List<Callback>>();
+
+    private final Executor decodeExecutor;
+
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    /**
+     * 后台解码完成的回调,在 UI 线程调用
+     */
+    public interface Callback {
+
+        /**
+         * @param resId  图片资源id
+         * @param size   请求的目标边长
+         * @param bitmap 解码好的图片,已经替调用方 {@link #acquire} 过一次;解码失败时为 null
+         */
+        void onThumbLoaded(int resId, int size, Bitmap bitmap);
+    }
+
+    public static synchronized ThumbBitmapCache getInstance() {
+        if (sInstance == null) {
+            long maxMemory = Runtime.getRuntime().maxMemory();
+            sInstance = new ThumbBitmapCache((int) Math.min(Integer.MAX_VALUE, maxMemory / DEFAULT_MEMORY_FRACTION),
+                    Executors.newSingleThreadExecutor(new ThreadFactory() {
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            Thread thread = new Thread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                                    r.run();
+                                }
+                            }, "ThumbBitmapDecoder");
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    }));
+        }
+        return sInstance;
+    }
+
+    ThumbBitmapCache(int maxBytes, Executor decodeExecutor) {
+        if (maxBytes <= 0) {
+            throw new IllegalArgumentException("maxBytes must be > 0");
+        }
+        if (decodeExecutor == null) {
+            throw new IllegalArgumentException("decodeExecutor == null");
+        }
+        this.decodeExecutor = decodeExecutor;
+        cache = new LruCache<Key, Entry>(maxBytes) {
+            @Override
+            protected int sizeOf(Key key, Entry value) {
+                return value.bitmap.getRowBytes() * value.bitmap.getHeight();
+            }
+
+            @Override
+            protected void entryRemoved(boolean evicted, Key key, Entry oldValue, Entry newValue) {
+                onRemoved(oldValue);
+            }
+        };
+    }
+
+    /**
+     * 取出缩放到 size * size 的图片,不存在时在当前线程解码并放入缓存。
+     * 返回的图片不参与引用计数,以后也不会被复用,UI 线程上应改用 {@link #acquire} 和 {@link #load}
+     *
+     * @param res   用于解码的资源
+     * @param resId 图片资源id
+     * @param size  目标边长,单位 px
+     * @return 缩放后的图片, size <= 0 或解码失败时返回 null
+     */
+    public Bitmap get(Resources res, int resId, int size) {
+        if (size <= 0) {
+            return null;
+        }
+        Key key = new Key(resId, size, res.getDisplayMetrics().densityDpi);
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            Bitmap bitmap = decode(res, resId, size, null);
+            if (bitmap == null) {
+                return null;
+            }
+            return put(key, bitmap, 0, true).bitmap;
+        }
+        synchronized (this) {
+            entry.pinned = true;
+        }
+        return entry.bitmap;
+    }
+
+    /**
+     * 只查缓存,不解码。命中时引用计数加一
+     *
+     * @return 缓存中的图片,没有时返回 null
+     */
+    public Bitmap acquire(Resources res, int resId, int size) {
+        if (size <= 0) {
+            return null;
+        }
+        Entry entry = cache.get(new Key(resId, size, res.getDisplayMetrics().densityDpi));
+        if (entry == null) {
+            return null;
+        }
+        synchronized (this) {
+            ++entry.refs;
+        }
+        return entry.bitmap;
+    }
+
+    /**
+     * 放弃一次 {@link #acquire} 或 {@link #load} 得到的引用。
+     * 图片已经不在缓存中且没有人引用时放进复用池
+     */
+    public void release(Bitmap bitmap) {
+        if (bitmap == null) {
+            return;
+        }
+        synchronized (this) {
+            Entry entry = entries.get(bitmap);
+            if (entry == null || entry.refs == 0) {
+                return;
+            }
+            if (--entry.refs == 0 && !entry.cached) {
+                recycleToPool(entry);
+            }
+        }
+    }
+
+    /**
+     * 在后台线程解码缩放到 size * size 的图片,必须在 UI 线程调用。
+     * 缓存命中时也在下一次消息循环中回调,调用方不需要区分两种情况
+     *
+     * @param callback 在 UI 线程收到结果,图片已经 acquire 过,不用时要 release
+     */
+    public void load(Resources res, final int resId, final int size, Callback callback) {
+        checkLoad(size, callback);
+        final Key key = new Key(resId, size, res.getDisplayMetrics().densityDpi);
+        if (joinPending(key, callback)) {
+            return;
+        }
+        final Entry cached = cache.get(key);
+        if (cached == null) {
+            decodeAsync(res, key, callback);
+            return;
+        }
+        List<Callback> callbacks = new ArrayList<Callback>(2);
+        callbacks.add(callback);
+        pending.put(key, callbacks);
+        // 先占一个引用,回调之前被淘汰也不会进复用池
+        synchronized (this) {
+            ++cached.refs;
+        }
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                List<Callback> callbacks = pending.remove(key);
+                synchronized (ThumbBitmapCache.this) {
+                    cached.refs += callbacks.size();
+                }
+                dispatch(callbacks, key, cached.bitmap);
+                release(cached.bitmap);
+            }
+        });
+    }
+
+    /**
+     * 缓存命中时和 {@link #acquire} 一样直接返回,否则和 {@link #load} 一样在后台解码。
+     * 只查一次缓存,命中和未命中各只计一次。必须在 UI 线程调用
+     *
+     * @param callback 未命中时在 UI 线程收到结果,图片已经 acquire 过,不用时要 release
+     * @return 缓存中的图片,已经 acquire 过;没有时返回 null,结果交给 callback
+     */
+    public Bitmap acquireOrLoad(Resources res, int resId, int size, Callback callback) {
+        checkLoad(size, callback);
+        Key key = new Key(resId, size, res.getDisplayMetrics().densityDpi);
+        if (joinPending(key, callback)) {
+            return null;
+        }
+        Entry entry = cache.get(key);
+        if (entry == null) {
+            decodeAsync(res, key, callback);
+            return null;
+        }
+        synchronized (this) {
+            ++entry.refs;
+        }
+        return entry.bitmap;
+    }
+
+    private static void checkLoad(int size, Callback callback) {
+        if (callback == null) {
+            throw new IllegalArgumentException("callback == null");
+        }
+        if (size <= 0) {
+            throw new IllegalArgumentException("size must be > 0");
+        }
+    }
+
+    /**
+     * 同一张图已经在解码或等待回调时,只把 callback 加进去
+     *
+     * @return 是否已经有进行中的请求
+     */
+    private boolean joinPending(Key key, Callback callback) {
+        List<Callback> callbacks = pending.get(key);
+        if (callbacks == null) {
+            return false;
+        }
+        callbacks.add(callback);
+        return true;
+    }
+
+    private void decodeAsync(final Resources res, final Key key, Callback callback) {
+        List<Callback> callbacks = new ArrayList<Callback>(2);
+        callbacks.add(callback);
+        pending.put(key, callbacks);
+        decodeExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Bitmap bitmap = decode(res, key.resId, key.size, takeReusable(key.size));
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        List<Callback> callbacks = pending.remove(key);
+                        if (bitmap != null) {
+                            put(key, bitmap, callbacks.size(), false);
+                        }
+                        dispatch(callbacks, key, bitmap);
+                    }
+                });
+            }
+        });
+    }
+
+    private static void dispatch(List<Callback> callbacks, Key key, Bitmap bitmap) {
+        for (int i = 0; i < callbacks.size(); ++i) {
+            callbacks.get(i).onThumbLoaded(key.resId, key.size, bitmap);
+        }
+    }
+
+    /**
+     * 放入缓存前先设好引用数,图片比整个缓存还大、放入后立刻被淘汰时也不会进复用池
+     */
+    private Entry put(Key key, Bitmap bitmap, int refs, boolean pinned) {
+        Entry entry = new Entry(bitmap);
+        entry.refs = refs;
+        entry.pinned = pinned;
+        synchronized (this) {
+            entries.put(bitmap, entry);
+        }
+        cache.put(key, entry);
+        return entry;
+    }
+
+    private synchronized void onRemoved(Entry entry) {
+        entry.cached = false;
+        if (entry.refs == 0) {
+            recycleToPool(entry);
+        }
+    }
+
+    private void recycleToPool(Entry entry) {
+        entries.remove(entry.bitmap);
+        if (entry.pinned || !entry.bitmap.isMutable() || Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+            return;
+        }
+        if (pool.size() == MAX_POOL_SIZE) {
+            pool.remove(0);
+        }
+        pool.add(entry.bitmap);
+    }
+
+    /**
+     * 从复用池中取出一张内存足够解码 size * size 图片的图片
+     */
+    private synchronized Bitmap takeReusable(int size) {
+        int bytes = size * size * 4;
+        for (int i = 0; i < pool.size(); ++i) {
+            Bitmap candidate = pool.get(i);
+            if (allocationByteCount(candidate) >= bytes) {
+                return pool.remove(i);
+            }
+        }
+        return null;
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static int allocationByteCount(Bitmap bitmap) {
+        return bitmap.getAllocationByteCount();
+    }
+
+    /**
+     * 解码到最长边等于 size。先按 2 的幂降采样到不小于 size,再由解码器按密度比例缩放剩下的部分
+     *
+     * @param reusable 可以复用内存的图片,为 null 时分配新的
+     */
+    private static Bitmap decode(Resources res, int resId, int size, Bitmap reusable) {
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        options.inScaled = false;
+        BitmapFactory.decodeResource(res, resId, options);
+        int longest = Math.max(options.outWidth, options.outHeight);
+        if (longest <= 0) {
+            return null;
+        }
+        options.inJustDecodeBounds = false;
+        options.inSampleSize = sampleSize(longest, size);
+        // 降采样后的尺寸当作图片密度,目标尺寸当作屏幕密度,解码器直接输出目标大小
+        options.inScaled = true;
+        options.inDensity = longest / options.inSampleSize;
+        options.inTargetDensity = size;
+        options.inMutable = true;
+        if (reusable != null) {
+            options.inBitmap = reusable;
+            try {
+                Bitmap bitmap = BitmapFactory.decodeResource(res, resId, options);
+                if (bitmap != null) {
+                    return bitmap;
+                }
+            } catch (IllegalArgumentException e) {
+                // 复用的内存不满足解码器的要求,改为分配新的
+            }
+            options.inBitmap = null;
+        }
+        return BitmapFactory.decodeResource(res, resId, options);
+    }
+
+    /**
+     * 解码后最长边仍不小于 size 的最大的 2 的幂
+     */
+    static int sampleSize(int longest, int size) {
+        int sample = 1;
+        while (longest / (sample * 2) >= size) {
+            sample *= 2;
+        }
+        return sample;
+    }
+
+    public void clear() {
+        cache.evictAll();
+        synchronized (this) {
+            pool.clear();
+        }
+    }
+
+    public int getHitCount() {
+        return cache.hitCount();
+    }
+
+    public int getMissCount() {
+        return cache.missCount();
+    }
+
+    public int getEvictionCount() {
+        return cache.evictionCount();
+    }
+
+    /** 当前占用的字节数 */
+    public int getSize() {
+        return cache.size();
+    }
+
+    public int getMaxSize() {
+        return cache.maxSize();
+    }
+
+    /** 图片是否还在缓存中或仍被引用 */
+    synchronized boolean isTracked(Bitmap bitmap) {
+        return entries.containsKey(bitmap);
+    }
+
+    /** 复用池中的图片数 */
+    public synchronized int getPoolSize() {
+        return pool.size();
+    }
+
+    private static final class Entry {
+        final Bitmap bitmap;
+        /** View 持有的引用数 */
+        int refs;
+        /** 还在 LruCache 中 */
+        boolean cached = true;
+        /** 通过 {@link #get} 交出去过,不知道何时不再使用,不能复用 */
+        boolean pinned;
+
+        Entry(Bitmap bitmap) {
+            this.bitmap = bitmap;
+        }
+    }
+
+    private static final class Key {
+        final int resId;
+        final int size;
+        final int densityDpi;
+
+        Key(int resId, int size, int densityDpi) {
+            this.resId = resId;
+            this.size = size;
+            this.densityDpi = densityDpi;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return resId == other.resId && size == other.size && densityDpi == other.densityDpi;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = resId;
+            result = 31 * result + size;
+            result = 31 * result + densityDpi;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,352 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import githubzzx752904457.com.rangesliderview.core.RecordingCanvas;
+import githubzzx752904457.com.rangesliderview.core.SliderValues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 拖动、绘制和动画每一帧分配的内存不能超过记录下来的预算。
+ * <p>
+ * 用 ThreadMXBean 统计当前线程分配的字节数。Robolectric 的影子类在调用 Android 方法时自己也会分配一些,
+ * 预算是在它上面测得的值加少量余量;热路径上重新出现解码图片、创建渐变或动画时会明显超出。
+ * 有意改变这些路径后,按失败信息中的实际值更新预算。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class AllocationBudgetTest {
+
+    /** 每次 onDraw,字节。实测为 0 */
+    private static final long DRAW_BUDGET = 16;
+
+    /** 拖动时每个 ACTION_MOVE,字节。实测约 56,来自影子 MotionEvent 和 VelocityTracker 返回值的装箱 */
+    private static final long MOVE_BUDGET = 96;
+
+    /** 水波纹的每一帧,字节。实测约 330,来自 ShadowMatrix 记录的变换 */
+    private static final long RIPPLE_TICK_BUDGET = 384;
+
+    /**
+     * 松手后甩动和水波纹动画的每一帧,包括重画,字节。
+     * 实测约 3900,绝大部分是 Robolectric 模拟动画和消息调度的开销
+     */
+    private static final long RELEASE_TICK_BUDGET = 4608;
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 150;
+
+    private static final int FRAMES = 200;
+
+    private static final long FRAME_MS = 16;
+
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final NullCanvas canvas = new NullCanvas();
+
+    private final RecordingCanvas recorder = new RecordingCanvas();
+
+    private RangeSliderView view;
+
+    private float thumbX;
+
+    private float thumbY;
+
+    /** 动画每一帧都会重画一块区域 */
+    private int invalidations;
+
+    /** 模拟每次 invalidate 后的一帧 */
+    private boolean drawOnInvalidate;
+
+    /** 测量本身的开销,从每次的结果中减掉 */
+    private long overhead;
+
+    /** 只统计调用次数的 Canvas,不经过 Robolectric 的 ShadowCanvas,避免它记录绘制历史的开销 */
+    private static final class NullCanvas extends Canvas {
+        int calls;
+
+        int texts;
+
+        /** 模拟的裁剪区域 */
+        final Rect clip = new Rect(0, 0, WIDTH, HEIGHT);
+
+        @Override
+        public boolean getClipBounds(Rect bounds) {
+            bounds.set(clip);
+            return !clip.isEmpty();
+        }
+
+        @Override
+        public void drawText(String text, float x, float y, Paint paint) {
+            ++calls;
+            ++texts;
+        }
+
+        @Override
+        public void drawRect(float left, float top, float right, float bottom, Paint paint) {
+            ++calls;
+        }
+
+        @Override
+        public void drawPoints(float[] pts, int offset, int count, Paint paint) {
+            ++calls;
+        }
+
+        @Override
+        public void drawLine(float startX, float startY, float stopX, float stopY, Paint paint) {
+            ++calls;
+        }
+
+        @Override
+        public void drawCircle(float cx, float cy, float radius, Paint paint) {
+            ++calls;
+        }
+
+        @Override
+        public void drawBitmap(Bitmap bitmap, float left, float top, Paint paint) {
+            ++calls;
+        }
+    }
+
+    @Before
+    public void setUp() {
+        assumeTrue(threads.isThreadAllocatedMemorySupported());
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        Context context = RuntimeEnvironment.application;
+        view = new RangeSliderView(context, SliderStyle.obtain(context, (AttributeSet) null)) {
+            @Override
+            public void invalidate(int l, int t, int r, int b) {
+                super.invalidate(l, t, r, b);
+                ++invalidations;
+                if (drawOnInvalidate) {
+                    onDraw(canvas);
+                }
+            }
+        };
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        view.setOnSlideListener(new RangeSliderView.OnSlideListener() {
+            @Override
+            public void onSlide(int index) {
+            }
+        });
+
+        thumbX = thumbX();
+        thumbY = recorder.getArg(recorder.getOpCount() - 1, 1);
+
+        long start = allocated();
+        for (int i = 0; i < 1000; ++i) {
+            allocated();
+        }
+        overhead = (allocated() - start) / 1000;
+    }
+
+    /**
+     * 录制一帧,最后一个绘制操作是滑块
+     */
+    private float thumbX() {
+        recorder.reset();
+        view.drawFrame(recorder);
+        return recorder.getArg(recorder.getOpCount() - 1, 0);
+    }
+
+    private long allocated() {
+        return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static void assertWithinBudget(String what, long bytes, int count, long budget) {
+        long perCall = bytes / count;
+        assertTrue(what + " allocated " + perCall + " bytes per call, budget is " + budget,
+                perCall <= budget);
+    }
+
+    /**
+     * 从第一个点拖到最后一个点再拖回来,每个事件的时间间隔一帧
+     */
+    private MotionEvent[] dragEvents(long downTime) {
+        MotionEvent[] events = new MotionEvent[FRAMES];
+        float span = WIDTH - thumbX * 2;
+        for (int i = 0; i < FRAMES; ++i) {
+            float t = (float) i / (FRAMES - 1);
+            float x = thumbX + span * (t < 0.5f ? t * 2 : 2 - t * 2);
+            events[i] = MotionEvent.obtain(downTime, downTime + (i + 1) * FRAME_MS,
+                    MotionEvent.ACTION_MOVE, x, thumbY, 0);
+        }
+        return events;
+    }
+
+    @Test
+    public void drawStaysWithinBudget() {
+        view.onDraw(canvas);
+        long bytes = 0;
+        for (int i = 0; i < FRAMES; ++i) {
+            long start = allocated();
+            view.onDraw(canvas);
+            bytes += allocated() - start - overhead;
+        }
+        assertTrue(canvas.calls > 0);
+        assertWithinBudget("onDraw", bytes, FRAMES, DRAW_BUDGET);
+    }
+
+    @Test
+    public void dragStaysWithinBudget() {
+        long downTime = SystemClock.uptimeMillis();
+        MotionEvent down = MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, thumbX, thumbY, 0);
+        MotionEvent[] moves = dragEvents(downTime);
+        assertTrue(view.onTouchEvent(down));
+
+        long touchBytes = 0;
+        long drawBytes = 0;
+        for (MotionEvent move : moves) {
+            long start = allocated();
+            view.onTouchEvent(move);
+            long mid = allocated();
+            view.onDraw(canvas);
+            long end = allocated();
+            touchBytes += mid - start - overhead;
+            drawBytes += end - mid - overhead;
+        }
+        assertWithinBudget("onTouchEvent(ACTION_MOVE)", touchBytes, moves.length, MOVE_BUDGET);
+        assertWithinBudget("onDraw while dragging", drawBytes, moves.length, DRAW_BUDGET);
+    }
+
+    @Test
+    public void labelsDrawWithinBudget() {
+        view.setValues(SliderValues.linear(100, 100, 5, null));
+        view.setShowLabels(true);
+        // 第一帧排版并测量文字
+        view.onDraw(canvas);
+        canvas.texts = 0;
+        long bytes = 0;
+        for (int i = 0; i < FRAMES; ++i) {
+            long start = allocated();
+            view.onDraw(canvas);
+            bytes += allocated() - start - overhead;
+        }
+        assertEquals(5 * FRAMES, canvas.texts);
+        assertWithinBudget("onDraw with labels", bytes, FRAMES, DRAW_BUDGET);
+
+        // 只重画滑块所在的横条时不画文字
+        canvas.texts = 0;
+        canvas.clip.set(0, 0, WIDTH, (int) thumbY());
+        view.onDraw(canvas);
+        assertEquals(0, canvas.texts);
+        // 只重画左边一段时只画那里的文字
+        canvas.clip.set(0, 0, (int) thumbX(), HEIGHT);
+        view.onDraw(canvas);
+        assertEquals(1, canvas.texts);
+    }
+
+    private float thumbY() {
+        recorder.reset();
+        view.drawFrame(recorder);
+        return recorder.getArg(recorder.getOpCount() - 1, 1);
+    }
+
+    /**
+     * 从第一个点快速向右拖出一段后松手,返回还没有分发的 ACTION_UP
+     */
+    private MotionEvent flingFromFirstSlot() {
+        view.setInitialIndex(0);
+        int count = FRAMES / 5;
+        // 松手的时刻就是模拟时钟的当前时间
+        long downTime = SystemClock.uptimeMillis() - (count + 1) * FRAME_MS;
+        MotionEvent[] moves = dragEvents(downTime);
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, thumbX, thumbY, 0));
+        for (int i = 0; i < count; ++i) {
+            view.onTouchEvent(moves[i]);
+        }
+        MotionEvent last = moves[count - 1];
+        return MotionEvent.obtain(downTime, last.getEventTime() + FRAME_MS,
+                MotionEvent.ACTION_UP, last.getX(), thumbY, 0);
+    }
+
+    @Test
+    public void rippleTickStaysWithinBudget() {
+        RippleEffect ripple = new RippleEffect(view, new Paint(Paint.ANTI_ALIAS_FLAG), 700);
+        ripple.start(thumbX, thumbY, 40);
+        ripple.cancel();
+        ripple.setRadius(1);
+        long bytes = 0;
+        for (int i = 1; i <= FRAMES; ++i) {
+            long start = allocated();
+            ripple.setRadius(i * 0.2f);
+            ripple.draw(canvas);
+            bytes += allocated() - start - overhead;
+        }
+        assertWithinBudget("ripple tick", bytes, FRAMES, RIPPLE_TICK_BUDGET);
+    }
+
+    @Test
+    public void releaseAnimationStaysWithinBudget() {
+        // 第一次松手创建动画、水波纹和帧回调
+        view.onTouchEvent(flingFromFirstSlot());
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+
+        MotionEvent up = flingFromFirstSlot();
+        float releaseX = thumbX();
+        drawOnInvalidate = true;
+        invalidations = 0;
+        long start = allocated();
+        // 松手后甩动到预测的点,再播放水波纹,每一帧都重画
+        view.onTouchEvent(up);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        long bytes = allocated() - start - overhead;
+        drawOnInvalidate = false;
+
+        assertTrue(thumbX() > releaseX);
+        assertTrue("ticks=" + invalidations, invalidations > 10);
+        assertWithinBudget("release animation tick", bytes, invalidations, RELEASE_TICK_BUDGET);
+    }
+
+    @Test
+    public void settleAnimationStaysWithinBudget() {
+        view.setInitialIndex(1);
+        float secondX = thumbX();
+        view.setInitialIndex(0);
+        // 慢慢拖到两个点之间偏第一个点的位置,松手后应滑回第一个点
+        float x = thumbX + (secondX - thumbX) * 0.4f;
+        long downTime = SystemClock.uptimeMillis() - 2000;
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, thumbX, thumbY, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 1000, MotionEvent.ACTION_MOVE, x, thumbY, 0));
+        MotionEvent up = MotionEvent.obtain(downTime, downTime + 2000, MotionEvent.ACTION_UP, x, thumbY, 0);
+
+        drawOnInvalidate = true;
+        invalidations = 0;
+        long start = allocated();
+        view.onTouchEvent(up);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        long bytes = allocated() - start - overhead;
+        drawOnInvalidate = false;
+
+        // 滑回去用了多帧,不是直接跳到点上
+        assertEquals(thumbX, thumbX(), 0.01f);
+        assertTrue("ticks=" + invalidations, invalidations > 3);
+        assertWithinBudget("settle animation tick", bytes, invalidations, RELEASE_TICK_BUDGET);
+    }
+}
@@ -0,0 +1,156 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.content.Context;
+import android.util.AttributeSet;
+import android.view.View;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import githubzzx752904457.com.rangesliderview.core.RecordingCanvas;
+import githubzzx752904457.com.rangesliderview.core.SliderValues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 用 {@link RangeSliderView#drawFrame} 录制一帧,和 src/test/resources/golden 中保存的命令逐行比较。
+ * <p>
+ * 有意修改画法后用 -DupdateGolden=true 重新生成保存的结果,再检查 diff。
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class GoldenFrameTest {
+
+    private static final int WIDTH = 400;
+
+    private static final int HEIGHT = 60;
+
+    private final RecordingCanvas canvas = new RecordingCanvas();
+
+    private static RangeSliderView view(int rangeCount, float minMarkSpacing) {
+        Context context = RuntimeEnvironment.application;
+        RangeSliderView view = new RangeSliderView(context, SliderStyle.obtain(context, (AttributeSet) null));
+        view.setRangeCount(rangeCount);
+        view.setMinMarkSpacing(minMarkSpacing);
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+        return view;
+    }
+
+    private static RangeSliderView single(int rangeCount, int index, float minMarkSpacing) {
+        RangeSliderView view = view(rangeCount, minMarkSpacing);
+        view.setInitialIndex(index);
+        return view;
+    }
+
+    private static RangeSliderView range(int rangeCount, int min, int max) {
+        RangeSliderView view = view(rangeCount, 0);
+        view.setRangeMode(true);
+        view.setRange(min, max);
+        return view;
+    }
+
+    private void assertGolden(String name, RangeSliderView view) throws IOException {
+        canvas.reset();
+        int ops = view.drawFrame(canvas);
+        assertEquals(ops, canvas.getOpCount());
+        String actual = canvas.toCommands();
+
+        if (Boolean.getBoolean("updateGolden")) {
+            File file = new File("src/test/resources/golden/" + name + ".txt");
+            file.getParentFile().mkdirs();
+            OutputStream out = new FileOutputStream(file);
+            try {
+                out.write(actual.getBytes("UTF-8"));
+            } finally {
+                out.close();
+            }
+            return;
+        }
+        InputStream in = getClass().getResourceAsStream("/golden/" + name + ".txt");
+        assertNotNull("Missing golden file " + name + ", run with -DupdateGolden=true", in);
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        try {
+            byte[] buffer = new byte[4096];
+            for (int n; (n = in.read(buffer)) > 0; ) {
+                expected.write(buffer, 0, n);
+            }
+        } finally {
+            in.close();
+        }
+        assertEquals(name, expected.toString("UTF-8"), actual);
+    }
+
+    @Test
+    public void matchesGoldenFrames() throws IOException {
+        assertGolden("single_5_first", single(5, 0, 0));
+        assertGolden("single_5_middle", single(5, 2, 0));
+        assertGolden("single_5_last", single(5, 4, 0));
+        assertGolden("range_5", range(5, 1, 3));
+        assertGolden("range_5_collapsed", range(5, 2, 2));
+        assertGolden("single_40_decimated", single(40, 17, 20));
+        assertGolden("range_1000_continuous", range(1000, 250, 750));
+    }
+
+    @Test
+    public void matchesGoldenFrameWithLabels() throws IOException {
+        RangeSliderView view = single(5, 1, 0);
+        view.setValues(SliderValues.linear(100, 100, 5, null));
+        view.setShowLabels(true);
+        assertGolden("single_5_labels", view);
+    }
+
+    @Test
+    public void matchesGoldenFrameWithHistogram() throws IOException, InterruptedException {
+        RangeSliderView view = single(5, 2, 0);
+        double[] data = new double[1000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (i % 40) / 10.0;
+        }
+        view.setHistogramData(data, data.length);
+        // 统计在后台线程完成,结果交回 UI 线程后才会画出来
+        for (int i = 0; i < 200 && !hasColumns(view); ++i) {
+            Thread.sleep(10);
+            ShadowLooper.runUiThreadTasks();
+        }
+        assertTrue(hasColumns(view));
+        assertGolden("single_5_histogram", view);
+    }
+
+    private boolean hasColumns(RangeSliderView view) {
+        canvas.reset();
+        view.drawFrame(canvas);
+        return canvas.getOpType(0) == RecordingCanvas.OP_COLUMNS;
+    }
+
+    @Test
+    public void countsOps() {
+        // 选中和未选中的横线、两组圆点、滑块
+        canvas.reset();
+        assertEquals(5, single(5, 2, 0).drawFrame(canvas));
+        assertEquals(5, canvas.getPointCount());
+        assertEquals(RecordingCanvas.OP_THUMB, canvas.getOpType(canvas.getOpCount() - 1));
+
+        // 点太密时不画圆点,改画连续的线
+        canvas.reset();
+        single(1000, 500, 0).drawFrame(canvas);
+        assertEquals(0, canvas.getPointCount());
+        for (int op = 0; op < canvas.getOpCount(); ++op) {
+            assertTrue(canvas.getOpType(op) != RecordingCanvas.OP_POINTS);
+        }
+    }
+}
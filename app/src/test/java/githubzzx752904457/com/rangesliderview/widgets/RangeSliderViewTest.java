@@ -0,0 +1,240 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.content.Context;
+import android.os.Parcelable;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.MotionEvent;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import githubzzx752904457.com.rangesliderview.core.QuantileSlots;
+import githubzzx752904457.com.rangesliderview.core.RecordingCanvas;
+import githubzzx752904457.com.rangesliderview.core.SliderMeasure;
+import githubzzx752904457.com.rangesliderview.core.SliderScale;
+import githubzzx752904457.com.rangesliderview.core.SliderState;
+import githubzzx752904457.com.rangesliderview.core.SliderValues;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class RangeSliderViewTest {
+
+    private static final int WIDTH = 1000;
+
+    private static final int HEIGHT = 150;
+
+    private final RecordingCanvas recorder = new RecordingCanvas();
+
+    private RangeSliderView view;
+
+    @Before
+    public void setUp() {
+        Context context = RuntimeEnvironment.application;
+        view = new RangeSliderView(context, SliderStyle.obtain(context, (AttributeSet) null));
+        view.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, WIDTH, HEIGHT);
+    }
+
+    @Test
+    public void quantileSlotsBindWithScaleBeforeValuesSpread() {
+        view.setScale(SliderScale.LOG);
+        QuantileSlots slots = new QuantileSlots(5, null);
+        // 所有分位数都是 42,不能按数值排列,先等分
+        slots.addAll(new double[]{42}, 0, 1);
+        view.setQuantileSlots(slots);
+        assertSame(slots.latest(), view.getValues());
+        assertEquals(42, view.getCurrentValue(), 0);
+
+        // 0 不在对数刻度的定义域内
+        slots.addAll(new double[]{0, 100, 100, 100}, 0, 4);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertSame(slots.latest(), view.getValues());
+
+        slots.addAll(new double[]{1, 10, 1000}, 0, 3);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertSame(slots.latest(), view.getValues());
+        assertSame(SliderScale.LOG, view.getScale());
+    }
+
+    @Test
+    public void styleConstructorMeasuresAsWrapContent() {
+        Context context = RuntimeEnvironment.application;
+        SliderStyle style = SliderStyle.obtain(context, (AttributeSet) null);
+        RangeSliderView row = new RangeSliderView(context, style);
+        int atMost = View.MeasureSpec.makeMeasureSpec(500, View.MeasureSpec.AT_MOST);
+        row.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY), atMost);
+        int expected = SliderMeasure.desiredHeight(style.defaultHeight, 0, 0,
+                RangeSliderView.DEFAULT_PAINT_STROKE_WIDTH);
+        assertEquals(expected, row.getMeasuredHeight());
+
+        // 显示文字时再加上文字的高度
+        row.setValues(SliderValues.linear(1, 1, 5, null));
+        row.setShowLabels(true);
+        row.measure(View.MeasureSpec.makeMeasureSpec(WIDTH, View.MeasureSpec.EXACTLY), atMost);
+        assertTrue(row.getMeasuredHeight() > expected);
+    }
+
+    /**
+     * 录制一帧,返回最后一个绘制操作(滑块)的第 arg 个参数
+     */
+    private float thumbArg(int arg) {
+        recorder.reset();
+        view.drawFrame(recorder);
+        return recorder.getArg(recorder.getOpCount() - 1, arg);
+    }
+
+    @Test
+    public void cancelledDragSettlesBackAndUnblocksQuantiles() {
+        QuantileSlots slots = new QuantileSlots(5, null);
+        slots.addAll(new double[]{0, 10, 20, 30, 40}, 0, 5);
+        view.setQuantileSlots(slots);
+        view.setInitialIndex(1);
+        float slotX = thumbArg(0);
+        float y = thumbArg(1);
+        final int[] slides = new int[1];
+        view.setOnSlideListener(new RangeSliderView.OnSlideListener() {
+            @Override
+            public void onSlide(int index) {
+                ++slides[0];
+            }
+        });
+
+        long downTime = SystemClock.uptimeMillis() - 1000;
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, slotX, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 500, MotionEvent.ACTION_MOVE, slotX + 300, y, 0));
+        assertEquals(slotX + 300, thumbArg(0), 0.01f);
+        // 拖动期间数据变化,新的分位数要等到手指离开后才换上
+        slots.addAll(new double[]{100, 200, 300}, 0, 3);
+        ShadowLooper.runUiThreadTasks();
+        assertEquals(40, view.getValues().valueAt(4), 0);
+
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 1000, MotionEvent.ACTION_CANCEL, slotX + 300, y, 0));
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(0, slides[0]);
+        assertEquals(slotX, thumbArg(0), 0.01f);
+        assertSame(slots.latest(), view.getValues());
+    }
+
+    @Test
+    public void cancelledRangeDragReturnsThumbs() {
+        view.setRangeMode(true);
+        view.setRange(1, 3);
+        float maxX = thumbArg(0);
+        float y = thumbArg(1);
+        long downTime = SystemClock.uptimeMillis();
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, maxX, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 16, MotionEvent.ACTION_MOVE, maxX + 150, y, 0));
+        assertEquals(maxX + 150, thumbArg(0), 0.01f);
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 32, MotionEvent.ACTION_CANCEL, maxX + 150, y, 0));
+        assertEquals(maxX, thumbArg(0), 0.01f);
+        assertEquals(3, view.getMaxIndex());
+    }
+
+    /**
+     * 等后台统计的结果送回 UI 线程,直到画出来的列数不是 stale
+     */
+    private int awaitColumns(int stale) throws InterruptedException {
+        int columns = drawnColumns();
+        for (int i = 0; i < 200 && (columns == 0 || columns == stale); ++i) {
+            Thread.sleep(10);
+            ShadowLooper.runUiThreadTasks();
+            columns = drawnColumns();
+        }
+        return columns;
+    }
+
+    /**
+     * @return 画出来的柱子的列数,没有画柱子时返回 0
+     */
+    private int drawnColumns() {
+        recorder.reset();
+        view.drawFrame(recorder);
+        return recorder.getOpType(0) == RecordingCanvas.OP_COLUMNS ? (int) recorder.getArg(0, 3) : 0;
+    }
+
+    @Test
+    public void histogramKeepsDrawingAcrossRelayout() throws InterruptedException {
+        double[] data = new double[1000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = (i % 40) / 10.0;
+        }
+        view.setHistogramData(data, data.length);
+        int wide = awaitColumns(0);
+        assertTrue(wide > 0);
+
+        int narrow = WIDTH / 2;
+        view.measure(View.MeasureSpec.makeMeasureSpec(narrow, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(HEIGHT, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, narrow, HEIGHT);
+        // 新的统计结果送达前继续画旧的,不超出新的宽度
+        int columns = drawnColumns();
+        assertTrue("columns=" + columns, columns > 0 && columns < wide);
+
+        // 第一个点到最后一个点之间每个像素一列
+        view.setInitialIndex(0);
+        float first = thumbArg(0);
+        view.setInitialIndex(view.getRangeCount() - 1);
+        int expected = (int) Math.ceil(thumbArg(0) - first);
+        assertEquals(expected, awaitColumns(wide));
+    }
+
+    @Test
+    public void restoresStateIntoFewerSlots() {
+        Context context = RuntimeEnvironment.application;
+        RangeSliderView saved = new RangeSliderView(context, SliderStyle.obtain(context, (AttributeSet) null));
+        saved.setRangeCount(20);
+        saved.setInitialIndex(15);
+        saved.setRange(10, 18);
+        Parcelable state = saved.onSaveInstanceState();
+
+        // 新的布局只有 5 个点
+        view.setRangeCount(5);
+        view.onRestoreInstanceState(state);
+        SliderState restored = new SliderState();
+        view.saveState(restored);
+        assertEquals(4, restored.getCurrentIndex());
+        assertEquals(4, restored.getMinIndex());
+        assertEquals(4, restored.getMaxIndex());
+    }
+
+    @Test
+    public void setInitialIndexStopsARunningSnap() {
+        view.setInitialIndex(4);
+        float target = thumbArg(0);
+        view.setInitialIndex(1);
+        float slotX = thumbArg(0);
+        float y = thumbArg(1);
+
+        // 松手后滑块向最近的点吸附,动画的帧留在消息队列里
+        ShadowLooper.pauseMainLooper();
+        long downTime = SystemClock.uptimeMillis();
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime, MotionEvent.ACTION_DOWN, slotX, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 500, MotionEvent.ACTION_MOVE, slotX + 100, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 1000, MotionEvent.ACTION_UP, slotX + 100, y, 0));
+        view.setInitialIndex(4);
+        ShadowLooper.unPauseMainLooper();
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(target, thumbArg(0), 0.01f);
+
+        // 拖动中途设置也一样
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 2000, MotionEvent.ACTION_DOWN, target, y, 0));
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 2500, MotionEvent.ACTION_MOVE, target - 100, y, 0));
+        view.setInitialIndex(1);
+        ShadowLooper.runUiThreadTasksIncludingDelayedTasks();
+        assertEquals(slotX, thumbArg(0), 0.01f);
+        view.onTouchEvent(MotionEvent.obtain(downTime, downTime + 3000, MotionEvent.ACTION_MOVE, target, y, 0));
+        assertEquals(slotX, thumbArg(0), 0.01f);
+    }
+}
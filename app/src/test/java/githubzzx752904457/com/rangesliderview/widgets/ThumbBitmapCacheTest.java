@@ -0,0 +1,184 @@
+package githubzzx752904457.com.rangesliderview.widgets;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.util.AttributeSet;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 23, manifest = Config.NONE)
+public class ThumbBitmapCacheTest {
+
+    private static final int ICON = android.R.drawable.star_on;
+
+    private static final int SIZE = 48;
+
+    private final List<Runnable> decodes = new ArrayList<Runnable>();
+
+    private final List<Bitmap> results = new ArrayList<Bitmap>();
+
+    private final ThumbBitmapCache.Callback callback = new ThumbBitmapCache.Callback() {
+        @Override
+        public void onThumbLoaded(int resId, int size, Bitmap bitmap) {
+            assertEquals(ICON, resId);
+            assertEquals(SIZE, size);
+            results.add(bitmap);
+        }
+    };
+
+    private Resources res;
+
+    private ThumbBitmapCache cache;
+
+    @Before
+    public void setUp() {
+        res = RuntimeEnvironment.application.getResources();
+        // 交回 UI 线程的结果留在消息队列里,由测试决定何时处理
+        ShadowLooper.pauseMainLooper();
+        cache = new ThumbBitmapCache(1 << 20, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                decodes.add(command);
+            }
+        });
+    }
+
+    private void runDecodes() {
+        for (Runnable decode : decodes) {
+            decode.run();
+        }
+        decodes.clear();
+        ShadowLooper.idleMainLooper();
+    }
+
+    @Test
+    public void samplesDownToTheTargetSize() {
+        assertEquals(1, ThumbBitmapCache.sampleSize(48, 48));
+        assertEquals(1, ThumbBitmapCache.sampleSize(95, 48));
+        assertEquals(2, ThumbBitmapCache.sampleSize(96, 48));
+        assertEquals(8, ThumbBitmapCache.sampleSize(512, 48));
+        // 原图比目标小时不降采样,由密度缩放放大
+        assertEquals(1, ThumbBitmapCache.sampleSize(16, 48));
+    }
+
+    @Test
+    public void decodesOffTheCallingThreadOnce() {
+        cache.load(res, ICON, SIZE, callback);
+        cache.load(res, ICON, SIZE, callback);
+        assertNull(cache.acquire(res, ICON, SIZE));
+        assertEquals(1, decodes.size());
+        assertEquals(0, results.size());
+
+        runDecodes();
+        assertEquals(2, results.size());
+        assertNotNull(results.get(0));
+        assertSame(results.get(0), results.get(1));
+        assertSame(results.get(0), cache.acquire(res, ICON, SIZE));
+
+        // 命中缓存时不再解码,仍然异步回调
+        cache.load(res, ICON, SIZE, callback);
+        assertEquals(0, decodes.size());
+        assertEquals(2, results.size());
+        ShadowLooper.idleMainLooper();
+        assertSame(results.get(0), results.get(2));
+    }
+
+    @Test
+    public void countsOneLookupPerRequest() {
+        assertNull(cache.acquireOrLoad(res, ICON, SIZE, callback));
+        assertEquals(0, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        // 正在解码时不再查缓存
+        assertNull(cache.acquireOrLoad(res, ICON, SIZE, callback));
+        assertEquals(1, cache.getMissCount());
+        runDecodes();
+        assertEquals(2, results.size());
+
+        Bitmap bitmap = cache.acquireOrLoad(res, ICON, SIZE, callback);
+        assertSame(results.get(0), bitmap);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        assertEquals(0, decodes.size());
+
+        cache.load(res, ICON, SIZE, callback);
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void reusesOnlyReleasedBitmaps() {
+        cache.load(res, ICON, SIZE, callback);
+        runDecodes();
+        Bitmap bitmap = results.get(0);
+
+        // 被淘汰时仍有 View 在画它,不能复用
+        cache.clear();
+        assertEquals(0, cache.getPoolSize());
+        cache.release(bitmap);
+        assertEquals(bitmap.isMutable() ? 1 : 0, cache.getPoolSize());
+
+        // 多余的 release 不会让图片重复进池
+        cache.release(bitmap);
+        assertEquals(bitmap.isMutable() ? 1 : 0, cache.getPoolSize());
+    }
+
+    /**
+     * 等共享缓存在后台解码完滑块图片并交回 UI 线程
+     */
+    private static Bitmap awaitThumb(RangeSliderView view) throws InterruptedException {
+        for (int i = 0; i < 200 && view.getThumbBitmap() == null; ++i) {
+            Thread.sleep(10);
+            ShadowLooper.idleMainLooper();
+        }
+        return view.getThumbBitmap();
+    }
+
+    @Test
+    public void detachedViewReleasesItsThumb() throws InterruptedException {
+        Context context = RuntimeEnvironment.application;
+        RangeSliderView view = new RangeSliderView(context, SliderStyle.obtain(context, (AttributeSet) null));
+        view.measure(View.MeasureSpec.makeMeasureSpec(400, View.MeasureSpec.EXACTLY),
+                View.MeasureSpec.makeMeasureSpec(60, View.MeasureSpec.EXACTLY));
+        view.layout(0, 0, 400, 60);
+        view.onAttachedToWindow();
+        view.setIcon(ICON);
+        Bitmap bitmap = awaitThumb(view);
+        assertNotNull(bitmap);
+
+        // 被淘汰时 View 还在画它,继续跟踪引用
+        ThumbBitmapCache shared = ThumbBitmapCache.getInstance();
+        shared.clear();
+        assertTrue(shared.isTracked(bitmap));
+
+        view.onDetachedFromWindow();
+        assertNull(view.getThumbBitmap());
+        assertFalse(shared.isTracked(bitmap));
+
+        // 重新进入窗口时再取回图片
+        view.onAttachedToWindow();
+        Bitmap again = awaitThumb(view);
+        assertNotNull(again);
+        assertTrue(shared.isTracked(again));
+        view.onDetachedFromWindow();
+    }
+}
@@ -0,0 +1,93 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个滑块自己持有的对象占多少内存,画笔等共享资源不算在内。
+ * <p>
+ * 看 gc.alloc.rate.norm 一列,即每次操作分配的字节数:
+ * newInstance 是创建一个滑块并完成布局的开销,bind 是列表复用时绑定新状态的开销,应为 0。
+ * <p>
+ * ./gradlew :core:jmh -PjmhArgs="FootprintBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FootprintBenchmark {
+
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 150;
+
+    @Param({"5", "100", "1000"})
+    public int rangeCount;
+
+    private SliderModel model;
+
+    private SliderGeometry geometry;
+
+    private RenderPlan plan;
+
+    private final SliderState[] rows = new SliderState[64];
+
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        geometry = new SliderGeometry();
+        geometry.update(model, WIDTH, HEIGHT, 0, 0, 0, 0);
+        plan = new RenderPlan();
+        plan.compile(geometry, geometry.getFirstSlotX(), 0xFFFFA500, 0xFFC3C3C3, 5);
+        for (int i = 0; i < rows.length; ++i) {
+            rows[i] = new SliderState(i % rangeCount, 0, rangeCount - 1);
+        }
+    }
+
+    /**
+     * 一个滑块自己的模型、几何信息、绘制计划和状态
+     */
+    @Benchmark
+    public void newInstance(Blackhole blackhole) {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.update(model, WIDTH, HEIGHT, 0, 0, 0, 0);
+        RenderPlan plan = new RenderPlan();
+        plan.compile(geometry, geometry.getFirstSlotX(), 0xFFFFA500, 0xFFC3C3C3, 5);
+        blackhole.consume(model);
+        blackhole.consume(geometry);
+        blackhole.consume(plan);
+        blackhole.consume(new SliderState());
+    }
+
+    /**
+     * 复用的滑块绑定另一行的状态并重画
+     */
+    @Benchmark
+    public boolean bind() {
+        cursor = (cursor + 1) & (rows.length - 1);
+        SliderState state = rows[cursor];
+        model.setCurrentIndex(state.getCurrentIndex());
+        model.setRange(state.getMinIndex(), state.getMaxIndex());
+        geometry.update(model, WIDTH, HEIGHT, 0, 0, 0, 0);
+        return plan.compile(geometry, geometry.getSlotX(state.getCurrentIndex()), 0xFFFFA500, 0xFFC3C3C3, 5);
+    }
+}
@@ -0,0 +1,69 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 拖动时每帧编译并录制绘制操作的开销,不需要模拟器。
+ * <p>
+ * gc.alloc.rate.norm 应为 0:录制用的数组在预热后不再变大。
+ * <p>
+ * ./gradlew :core:jmh -PjmhArgs="RenderBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+
+    @Param({"5", "100", "1000"})
+    public int rangeCount;
+
+    private SliderGeometry geometry;
+
+    private RenderPlan plan;
+
+    private final RecordingCanvas canvas = new RecordingCanvas();
+
+    private float x;
+
+    @Setup
+    public void setUp() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        geometry = new SliderGeometry();
+        geometry.update(model, 1080, 150, 0, 0, 0, 0);
+        plan = new RenderPlan();
+        plan.setMinMarkSpacing(6);
+        x = geometry.getFirstSlotX();
+    }
+
+    /**
+     * 滑块每帧移动一个像素后重画
+     */
+    @Benchmark
+    public int dragFrame() {
+        x += 1;
+        if (x > geometry.getLastSlotX()) {
+            x = geometry.getFirstSlotX();
+        }
+        plan.compile(geometry, x, 0xFFFFA500, 0xFFC3C3C3, 5);
+        canvas.reset();
+        plan.draw(canvas);
+        canvas.drawThumb(x, geometry.getCenterY(), geometry.getRadius() * 1.5f, 0xFFFFA500);
+        return canvas.getOpCount();
+    }
+}
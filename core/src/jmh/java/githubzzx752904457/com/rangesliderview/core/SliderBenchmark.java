@@ -0,0 +1,109 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 布局、点击判断、吸附和填充计算的基准测试
+ * <p>
+ * ./gradlew :core:jmh -PjmhArgs="SliderBenchmark"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SliderBenchmark {
+
+    private static final int SAMPLES = 1024;
+
+    /** 1080p 竖屏下去掉 padding 后的宽度 */
+    private static final int WIDTH = 1080;
+
+    private static final int HEIGHT = 150;
+
+    @Param({"2", "5", "100", "10000", "1000000"})
+    public int rangeCount;
+
+    /** 宽度按点数放大,保证点不重叠,用于对比等间距和重叠两种情况 */
+    @Param({"false", "true"})
+    public boolean scaleWidth;
+
+    private SliderModel model;
+
+    private SliderGeometry geometry;
+
+    private int width;
+
+    private final float[] xs = new float[SAMPLES];
+
+    private final float[] ys = new float[SAMPLES];
+
+    private int cursor;
+
+    @Setup
+    public void setUp() {
+        model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        geometry = new SliderGeometry();
+        width = scaleWidth ? Math.max(WIDTH, rangeCount * 2) : WIDTH;
+        geometry.updateRadius(model, HEIGHT);
+        geometry.layout(model, width, HEIGHT, 0, 0, 0, 0);
+
+        Random random = new Random(7);
+        for (int i = 0; i < SAMPLES; ++i) {
+            xs[i] = random.nextFloat() * width;
+            ys[i] = random.nextFloat() * HEIGHT;
+        }
+    }
+
+    private int next() {
+        cursor = (cursor + 1) & (SAMPLES - 1);
+        return cursor;
+    }
+
+    @Benchmark
+    public float layout() {
+        geometry.layout(model, width, HEIGHT, 0, 0, 0, 0);
+        return geometry.getLastSlotX();
+    }
+
+    @Benchmark
+    public int nearestIndex() {
+        return geometry.nearestIndex(xs[next()]);
+    }
+
+    @Benchmark
+    public int filledCount() {
+        return geometry.filledCount(xs[next()]);
+    }
+
+    @Benchmark
+    public boolean hitTest() {
+        int i = next();
+        float thumbX = geometry.getSlotX(rangeCount >> 1);
+        return geometry.isInThumb(thumbX, geometry.getCenterY(), xs[i], ys[i]);
+    }
+
+    @Benchmark
+    public int measure() {
+        int width = SliderMeasure.resolve(SliderMeasure.MODE_AT_MOST, WIDTH,
+                SliderMeasure.desiredWidth(WIDTH, 16, 16, 5, geometry.getRadius()));
+        int height = SliderMeasure.resolve(SliderMeasure.MODE_UNSPECIFIED, 0,
+                SliderMeasure.desiredHeight(HEIGHT, 16, 16, 5));
+        return width + height;
+    }
+}
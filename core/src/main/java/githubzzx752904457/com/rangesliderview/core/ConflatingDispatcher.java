@@ -0,0 +1,104 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 把滑动事件交给后台线程处理的单槽邮箱,处理不过来时只保留最新的下标。
+ * <p>
+ * 保证:
+ * <ul>
+ * <li>{@link Callback#onSlide(int)} 不会并发执行,收到的下标是提交顺序的一个子序列;</li>
+ * <li>最后一次提交的下标一定会被处理;</li>
+ * <li>{@link Callback#onResult(int, Object)} 只在结果对应的仍是最新提交时调用,
+ *     因此结果不会倒退,最后一次提交的结果一定会送达。</li>
+ * </ul>
+ * {@link #dispatch(int)} 只做两次原子操作,在没有空闲的后台任务时才调用一次 execute。
+ */
+public final class ConflatingDispatcher<T> {
+
+    public interface Callback<T> {
+
+        /**
+         * 在后台 Executor 上调用
+         */
+        T onSlide(int index);
+
+        /**
+         * 在结果 Executor(通常是 UI 线程)上调用
+         */
+        void onResult(int index, T result);
+    }
+
+    private static final long EMPTY = -1;
+
+    private final Executor worker;
+
+    private final Executor resultExecutor;
+
+    private final Callback<T> callback;
+
+    /** 高 32 位是序号,低 32 位是下标,EMPTY 表示没有待处理的事件 */
+    private final AtomicLong mailbox = new AtomicLong(EMPTY);
+
+    /** 最近一次提交的序号 */
+    private final AtomicLong latest = new AtomicLong();
+
+    /** 是否已经有排空邮箱的任务在排队或运行 */
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    private final Runnable drain = new Runnable() {
+        @Override
+        public void run() {
+            drain();
+        }
+    };
+
+    public ConflatingDispatcher(Executor worker, Executor resultExecutor, Callback<T> callback) {
+        if (worker == null || resultExecutor == null || callback == null) {
+            throw new IllegalArgumentException("executors and callback must not be null");
+        }
+        this.worker = worker;
+        this.resultExecutor = resultExecutor;
+        this.callback = callback;
+    }
+
+    /**
+     * 提交新的下标,覆盖还没被处理的旧值
+     */
+    public void dispatch(int index) {
+        long seq = latest.incrementAndGet() & 0x7FFFFFFFL;
+        mailbox.set((seq << 32) | (index & 0xFFFFFFFFL));
+        if (scheduled.compareAndSet(false, true)) {
+            worker.execute(drain);
+        }
+    }
+
+    private void drain() {
+        try {
+            long packed;
+            while ((packed = mailbox.getAndSet(EMPTY)) != EMPTY) {
+                deliver((int) (packed >>> 32), (int) packed);
+            }
+        } finally {
+            scheduled.set(false);
+            // 释放标记和最后一次检查之间可能有新的提交没抢到标记
+            if (mailbox.get() != EMPTY && scheduled.compareAndSet(false, true)) {
+                worker.execute(drain);
+            }
+        }
+    }
+
+    private void deliver(final int seq, final int index) {
+        final T result = callback.onSlide(index);
+        resultExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (seq == (int) (latest.get() & 0x7FFFFFFFL)) {
+                    callback.onResult(index, result);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,206 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * 统计一组数值落在每个像素列中的个数,用来在横线后面画数据分布。
+ * <p>
+ * 数值保存在 double 数组里,可以有几百万个。{@link #bin(double[])} 把数据分块交给线程池并行统计,
+ * 列的边界不变、数据只是追加时只统计新增的部分;边界或数据变化后才全部重新统计。
+ * <p>
+ * 修改数据的方法可以在任意线程调用,{@link #bin(double[])} 应在后台线程调用,同一时间只能有一个。
+ */
+public final class HistogramBinner {
+
+    /** 每块至少这么多个数值,更少时不值得交给其他线程 */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 16;
+
+    private final ExecutorService pool;
+
+    private final int chunkSize;
+
+    /** 数据只追加,已写入的部分不再修改,读到引用和长度后可以在锁外读取 */
+    private double[] data = new double[0];
+
+    private int size;
+
+    /** data 是 {@link #setData} 传进来的数组,属于调用方,追加前要先复制 */
+    private boolean shared;
+
+    /** {@link #setData} 或 {@link #clear} 后加一,已经统计的结果作废 */
+    private int generation;
+
+    /** 以下只在 bin 中访问 */
+    private double[] binnedEdges;
+
+    private int[] counts;
+
+    private int binnedSize;
+
+    private int binnedGeneration = -1;
+
+    /**
+     * @param pool      并行统计用的线程池,为 null 时在调用线程上统计
+     * @param chunkSize 每块的数值个数
+     */
+    public HistogramBinner(ExecutorService pool, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunk size must be >= 1");
+        }
+        this.pool = pool;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * 替换全部数据。数组直接使用,不会复制,之后不能再修改;
+     * {@link #append} 不会写入这个数组,第一次追加时先复制一份
+     *
+     * @param count 有效的个数
+     */
+    public synchronized void setData(double[] values, int count) {
+        if (count < 0 || count > values.length) {
+            throw new IllegalArgumentException("count must be in [0, " + values.length + "]");
+        }
+        data = values;
+        size = count;
+        shared = true;
+        ++generation;
+    }
+
+    /**
+     * 在末尾追加数据,下一次统计只处理追加的部分
+     */
+    public synchronized void append(double[] values, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > values.length) {
+            throw new IllegalArgumentException("range out of bounds");
+        }
+        if (shared || size + count > data.length) {
+            // 另建一个数组,正在统计的线程仍然读旧数组里已经写好的部分,调用方的数组也不会被改写
+            data = Arrays.copyOf(data, Math.max(size + count, size + (size >> 1)));
+            shared = false;
+        }
+        System.arraycopy(values, offset, data, size, count);
+        size += count;
+    }
+
+    public synchronized void clear() {
+        data = new double[0];
+        size = 0;
+        shared = false;
+        ++generation;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * 统计每一列中数值的个数。第 c 列是 [edges[c], edges[c + 1]),最后一列包含右边界,
+     * 超出 [edges[0], 最后一个边界] 的数值和 NaN 不计入
+     *
+     * @param edges 单调不减,至少 2 个
+     * @return 每一列的个数,长度为 edges.length - 1,调用方可以保留
+     */
+    public int[] bin(double[] edges) {
+        if (edges.length < 2) {
+            throw new IllegalArgumentException("edges must contain at least 2 items");
+        }
+        double[] data;
+        int size;
+        int generation;
+        synchronized (this) {
+            data = this.data;
+            size = this.size;
+            generation = this.generation;
+        }
+        if (generation != binnedGeneration || binnedEdges == null || !Arrays.equals(edges, binnedEdges)
+                || size < binnedSize) {
+            binnedEdges = edges.clone();
+            counts = new int[edges.length - 1];
+            binnedSize = 0;
+            binnedGeneration = generation;
+        }
+        count(data, binnedSize, size, binnedEdges, counts);
+        binnedSize = size;
+        return counts.clone();
+    }
+
+    private void count(final double[] data, int from, int to, final double[] edges, int[] out) {
+        if (pool == null || to - from <= chunkSize) {
+            countRange(data, from, to, edges, out);
+            return;
+        }
+        List<Future<int[]>> futures = new ArrayList<Future<int[]>>();
+        for (int start = from; start < to; start += chunkSize) {
+            final int chunkFrom = start;
+            final int chunkTo = Math.min(to, start + chunkSize);
+            futures.add(pool.submit(new Callable<int[]>() {
+                @Override
+                public int[] call() {
+                    int[] partial = new int[edges.length - 1];
+                    countRange(data, chunkFrom, chunkTo, edges, partial);
+                    return partial;
+                }
+            }));
+        }
+        try {
+            for (Future<int[]> future : futures) {
+                int[] partial = future.get();
+                for (int c = 0; c < out.length; ++c) {
+                    out[c] += partial[c];
+                }
+            }
+        } catch (InterruptedException e) {
+            for (Future<int[]> future : futures) {
+                future.cancel(true);
+            }
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("interrupted while binning", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("binning failed", e.getCause());
+        }
+    }
+
+    static void countRange(double[] data, int from, int to, double[] edges, int[] out) {
+        int columns = edges.length - 1;
+        double low = edges[0];
+        double high = edges[columns];
+        for (int i = from; i < to; ++i) {
+            double value = data[i];
+            if (!(value >= low && value <= high)) {
+                continue;
+            }
+            // 第一个大于 value 的边界的前一列
+            int lo = 1;
+            int hi = columns;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (edges[mid] > value) {
+                    hi = mid;
+                } else {
+                    lo = mid + 1;
+                }
+            }
+            ++out[lo - 1];
+        }
+    }
+
+    /**
+     * @return counts 中最大的值,全为 0 时返回 0
+     */
+    public static int max(int[] counts) {
+        int max = 0;
+        for (int count : counts) {
+            if (count > max) {
+                max = count;
+            }
+        }
+        return max;
+    }
+}
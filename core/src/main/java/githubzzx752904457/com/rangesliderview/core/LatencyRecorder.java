@@ -0,0 +1,89 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 固定大小的环形缓冲区,保存最近的耗时样本(纳秒)。
+ * <p>
+ * 写入只做一次原子自增和一次 lazySet,不加锁也不分配内存,可以在绘制和触摸事件中调用;
+ * 读取时复制当前窗口再排序,适合在其他线程定时轮询。
+ */
+public final class LatencyRecorder {
+
+    private final AtomicLongArray samples;
+
+    private final int mask;
+
+    private final AtomicLong written = new AtomicLong();
+
+    /**
+     * @param capacity 保留的样本数,会向上取整到 2 的幂
+     */
+    public LatencyRecorder(int capacity) {
+        if (capacity < 1 || capacity > (1 << 30)) {
+            throw new IllegalArgumentException("capacity must be in [1, 2^30]");
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        samples = new AtomicLongArray(size);
+        mask = size - 1;
+    }
+
+    public void record(long nanos) {
+        long n = written.getAndIncrement();
+        samples.lazySet((int) (n & mask), nanos);
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    /**
+     * @return 累计写入的样本数,包括已被覆盖的
+     */
+    public long getCount() {
+        return written.get();
+    }
+
+    /**
+     * @return 当前窗口内样本的副本,顺序不保证
+     */
+    public long[] snapshot() {
+        int size = (int) Math.min(written.get(), mask + 1);
+        long[] copy = new long[size];
+        for (int i = 0; i < size; ++i) {
+            copy[i] = samples.get(i);
+        }
+        return copy;
+    }
+
+    public LatencyStats stats() {
+        long[] sorted = snapshot();
+        Arrays.sort(sorted);
+        return new LatencyStats(written.get(), sorted.length,
+                percentile(sorted, 50), percentile(sorted, 95), percentile(sorted, 99),
+                sorted.length == 0 ? 0 : sorted[sorted.length - 1]);
+    }
+
+    public void reset() {
+        written.set(0);
+    }
+
+    /**
+     * 最近秩法求百分位
+     *
+     * @param sorted  升序排列的样本
+     * @param percent 取值范围 [0, 100]
+     */
+    static long percentile(long[] sorted, double percent) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+}
@@ -0,0 +1,37 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Locale;
+
+/**
+ * {@link LatencyRecorder} 某一时刻的统计结果,单位纳秒
+ */
+public final class LatencyStats {
+
+    public final long count;
+
+    /** 参与统计的样本数,不超过缓冲区大小 */
+    public final int windowSize;
+
+    public final long p50;
+
+    public final long p95;
+
+    public final long p99;
+
+    public final long max;
+
+    public LatencyStats(long count, int windowSize, long p50, long p95, long p99, long max) {
+        this.count = count;
+        this.windowSize = windowSize;
+        this.p50 = p50;
+        this.p95 = p95;
+        this.p99 = p99;
+        this.max = max;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "count=%d window=%d p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms",
+                count, windowSize, p50 / 1e6, p95 / 1e6, p99 / 1e6, max / 1e6);
+    }
+}
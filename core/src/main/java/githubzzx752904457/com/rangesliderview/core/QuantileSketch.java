@@ -0,0 +1,240 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 流式的分位数估计,占用的内存和数据量的对数成正比。
+ * <p>
+ * 第 h 层的每个数代表 2^h 个原始数据,每层最多 k 个。第 0 层满了,或者上一层放不下下面送来的数时,
+ * 把这一层排序,从随机的起点隔一个取一个放到上一层。名次的误差大约是总数的 log2(n / k) / k,
+ * k = 200 时一百万个数据的误差在 1% 以内;最小值和最大值是精确的。
+ * <p>
+ * 所有方法用 this 同步,可以在多个后台线程中追加。
+ */
+public final class QuantileSketch {
+
+    public static final int DEFAULT_K = 200;
+
+    private final int k;
+
+    private final Random random;
+
+    private double[][] levels = new double[1][];
+
+    private int[] sizes = new int[1];
+
+    private long count;
+
+    private double min = Double.NaN;
+
+    private double max = Double.NaN;
+
+    /** 查询时合并各层用的缓冲,只在需要更多时变大 */
+    private double[] mergeValues = new double[0];
+
+    private long[] mergeWeights = new long[0];
+
+    public QuantileSketch() {
+        this(DEFAULT_K, 0);
+    }
+
+    /**
+     * @param k    每层最多保留的个数,偶数, >= 8;越大越准
+     * @param seed 压缩时随机取起点,相同的种子和输入得到相同的结果
+     */
+    public QuantileSketch(int k, long seed) {
+        if (k < 8 || (k & 1) != 0) {
+            throw new IllegalArgumentException("k must be an even number >= 8");
+        }
+        this.k = k;
+        random = new Random(seed);
+        levels[0] = new double[k];
+    }
+
+    /**
+     * 追加一个数,NaN 被忽略
+     */
+    public synchronized void add(double value) {
+        if (value != value) {
+            return;
+        }
+        if (count == 0) {
+            min = value;
+            max = value;
+        } else if (value < min) {
+            min = value;
+        } else if (value > max) {
+            max = value;
+        }
+        ++count;
+        levels[0][sizes[0]++] = value;
+        if (sizes[0] == k) {
+            compact(0);
+        }
+    }
+
+    public synchronized void addAll(double[] values, int offset, int count) {
+        if (offset < 0 || count < 0 || offset + count > values.length) {
+            throw new IllegalArgumentException("range out of bounds");
+        }
+        for (int i = offset; i < offset + count; ++i) {
+            add(values[i]);
+        }
+    }
+
+    /**
+     * 把第 h 层两两配对,每对随机留下一个放到上一层。上一层放不下时先压缩上一层;
+     * 个数为奇数时最大的一个留在这一层,总权重保持不变
+     */
+    private void compact(int h) {
+        if (h + 1 == levels.length) {
+            levels = Arrays.copyOf(levels, h + 2);
+            sizes = Arrays.copyOf(sizes, h + 2);
+            levels[h + 1] = new double[k];
+        }
+        int size = sizes[h];
+        int pairs = size / 2;
+        if (sizes[h + 1] + pairs > k) {
+            compact(h + 1);
+        }
+        double[] level = levels[h];
+        Arrays.sort(level, 0, size);
+        double[] up = levels[h + 1];
+        for (int i = random.nextBoolean() ? 1 : 0; i < pairs * 2; i += 2) {
+            up[sizes[h + 1]++] = level[i];
+        }
+        if ((size & 1) != 0) {
+            level[0] = level[size - 1];
+            sizes[h] = 1;
+        } else {
+            sizes[h] = 0;
+        }
+    }
+
+    /** 追加过的数据个数,不含 NaN */
+    public synchronized long count() {
+        return count;
+    }
+
+    /** 保留下来的数的个数 */
+    public synchronized int retained() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        return retained;
+    }
+
+    public synchronized double min() {
+        return min;
+    }
+
+    public synchronized double max() {
+        return max;
+    }
+
+    /**
+     * @param fraction [0, 1],0 是最小值,1 是最大值
+     * @return 估计的分位数,没有数据时为 NaN
+     */
+    public double quantile(double fraction) {
+        double[] out = new double[1];
+        quantiles(new double[]{fraction}, out);
+        return out[0];
+    }
+
+    /**
+     * 一次算出多个分位数,只合并一次各层的数据
+     *
+     * @param fractions 每个都在 [0, 1] 内,单调不减
+     * @param out       长度至少为 fractions.length
+     */
+    public synchronized void quantiles(double[] fractions, double[] out) {
+        for (int i = 0; i < fractions.length; ++i) {
+            if (!(fractions[i] >= 0 && fractions[i] <= 1) || (i > 0 && fractions[i] < fractions[i - 1])) {
+                throw new IllegalArgumentException("fractions must be non-decreasing and in [0, 1]");
+            }
+        }
+        if (count == 0) {
+            Arrays.fill(out, 0, fractions.length, Double.NaN);
+            return;
+        }
+        int retained = merge();
+        long total = 0;
+        for (int i = 0; i < retained; ++i) {
+            total += mergeWeights[i];
+        }
+        int j = 0;
+        long cumulative = 0;
+        for (int i = 0; i < fractions.length; ++i) {
+            double fraction = fractions[i];
+            if (fraction == 0) {
+                out[i] = min;
+                continue;
+            }
+            if (fraction == 1) {
+                out[i] = max;
+                continue;
+            }
+            // 第一个累计权重超过 fraction * total 的数
+            double rank = fraction * total;
+            while (j < retained - 1 && cumulative + mergeWeights[j] <= rank) {
+                cumulative += mergeWeights[j];
+                ++j;
+            }
+            out[i] = Math.max(min, Math.min(max, mergeValues[j]));
+        }
+    }
+
+    /**
+     * 各层排序后按值归并到 mergeValues,权重写入 mergeWeights
+     *
+     * @return 合并后的个数
+     */
+    private int merge() {
+        int retained = 0;
+        for (int size : sizes) {
+            retained += size;
+        }
+        if (mergeValues.length < retained) {
+            mergeValues = new double[retained];
+            mergeWeights = new long[retained];
+        }
+        int n = 0;
+        for (int h = 0; h < levels.length; ++h) {
+            int size = sizes[h];
+            if (size == 0) {
+                continue;
+            }
+            // 已经合并的部分有序,把这一层排序后从后往前归并进去
+            double[] level = levels[h];
+            Arrays.sort(level, 0, size);
+            long weight = 1L << h;
+            int a = n - 1;
+            int b = size - 1;
+            for (int w = n + size - 1; w >= 0; --w) {
+                if (b < 0 || (a >= 0 && mergeValues[a] > level[b])) {
+                    mergeValues[w] = mergeValues[a];
+                    mergeWeights[w] = mergeWeights[a];
+                    --a;
+                } else {
+                    mergeValues[w] = level[b];
+                    mergeWeights[w] = weight;
+                    --b;
+                }
+            }
+            n += size;
+        }
+        return n;
+    }
+
+    public synchronized void clear() {
+        levels = new double[1][];
+        levels[0] = new double[k];
+        sizes = new int[1];
+        count = 0;
+        min = Double.NaN;
+        max = Double.NaN;
+    }
+}
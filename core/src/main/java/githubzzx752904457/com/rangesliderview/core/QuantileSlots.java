@@ -0,0 +1,110 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 把不断增长的数据流换算成滑块的点:第 i 个点是第 i / (slotCount - 1) 分位数。
+ * <p>
+ * 数据在后台线程批量追加到 {@link QuantileSketch},每次追加后重新估计所有分位数,
+ * 和上一次不同时用一个新的不可变 {@link SliderValues} 原子地替换 {@link #latest()},再通知监听器。
+ * 读取方(UI 线程)只读一个引用,不会被追加数据的线程阻塞。
+ */
+public final class QuantileSlots {
+
+    /**
+     * 分位数更新的通知,在追加数据的线程上调用,应尽快返回
+     */
+    public interface Listener {
+        void onSlotsChanged(QuantileSlots slots);
+    }
+
+    private final QuantileSketch sketch;
+
+    private final int slotCount;
+
+    private final SliderValues.Formatter formatter;
+
+    private final double[] fractions;
+
+    private final double[] boundaries;
+
+    private final AtomicReference<SliderValues> latest = new AtomicReference<SliderValues>();
+
+    private volatile Listener listener;
+
+    /**
+     * @param slotCount 点的个数, >= 2
+     * @param formatter 格式化每个点的数值,可以为 null
+     */
+    public QuantileSlots(int slotCount, SliderValues.Formatter formatter) {
+        this(slotCount, formatter, new QuantileSketch());
+    }
+
+    public QuantileSlots(int slotCount, SliderValues.Formatter formatter, QuantileSketch sketch) {
+        if (slotCount < 2) {
+            throw new IllegalArgumentException("slotCount must be >= 2");
+        }
+        this.slotCount = slotCount;
+        this.formatter = formatter;
+        this.sketch = sketch;
+        fractions = new double[slotCount];
+        for (int i = 0; i < slotCount; ++i) {
+            fractions[i] = (double) i / (slotCount - 1);
+        }
+        fractions[slotCount - 1] = 1;
+        boundaries = new double[slotCount];
+    }
+
+    public int getSlotCount() {
+        return slotCount;
+    }
+
+    /**
+     * 追加一批数据,在后台线程调用。多个线程同时追加时依次处理,发布的结果不会倒退
+     */
+    public void addAll(double[] values, int offset, int count) {
+        SliderValues published;
+        synchronized (this) {
+            sketch.addAll(values, offset, count);
+            if (sketch.count() == 0) {
+                return;
+            }
+            sketch.quantiles(fractions, boundaries);
+            SliderValues current = latest.get();
+            if (current != null && sameAs(current)) {
+                return;
+            }
+            published = SliderValues.of(boundaries, formatter);
+            latest.set(published);
+        }
+        Listener listener = this.listener;
+        if (listener != null) {
+            listener.onSlotsChanged(this);
+        }
+    }
+
+    private boolean sameAs(SliderValues values) {
+        for (int i = 0; i < slotCount; ++i) {
+            if (values.valueAt(i) != boundaries[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 最近一次发布的分位数,还没有数据时为 null。可以在任意线程调用,不会阻塞
+     */
+    public SliderValues latest() {
+        return latest.get();
+    }
+
+    /** 已经追加的数据个数 */
+    public long count() {
+        return sketch.count();
+    }
+
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+}
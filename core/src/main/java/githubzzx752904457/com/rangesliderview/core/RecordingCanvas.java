@@ -0,0 +1,327 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * 把绘制操作记录在内存中,不需要 Android 就能检查或测量 onDraw 画了什么。
+ * <p>
+ * 记录保存在基本类型数组里,{@link #reset()} 后复用,录制一帧不分配内存(数组需要变大时除外)。
+ * 可以统计调用次数、按像素中心采样估算重复绘制,或者导出成文本和事先保存的结果比较。
+ */
+public final class RecordingCanvas implements SliderCanvas {
+
+    public static final int OP_RECT = 0;
+
+    /** 参数是记录的圆点在 {@link #getPoints()} 中的起始下标、float 个数和直径 */
+    public static final int OP_POINTS = 1;
+
+    /** 参数是 x0, y0, x1, y1 和线宽 */
+    public static final int OP_LINE = 2;
+
+    /** 参数是 x, y 和半径 */
+    public static final int OP_THUMB = 3;
+
+    /** 参数是 left, bottom, 柱子高度在 {@link #getColumnHeights()} 中的起始下标和个数 */
+    public static final int OP_COLUMNS = 4;
+
+    /** 参数是 centerX、基线和文字在 {@link #getText(int)} 中的下标 */
+    public static final int OP_TEXT = 5;
+
+    private static final int ARGS = 5;
+
+    private int[] types = new int[8];
+
+    private int[] colors = new int[8];
+
+    private float[] args = new float[8 * ARGS];
+
+    private int opCount;
+
+    private float[] points = new float[64];
+
+    private int pointsSize;
+
+    private float[] heights = new float[64];
+
+    private int heightsSize;
+
+    /** 只保存引用,不复制文字 */
+    private String[] texts = new String[8];
+
+    private int textsSize;
+
+    public void reset() {
+        opCount = 0;
+        pointsSize = 0;
+        heightsSize = 0;
+        Arrays.fill(texts, 0, textsSize, null);
+        textsSize = 0;
+    }
+
+    @Override
+    public void drawRect(float left, float top, float right, float bottom, int color) {
+        add(OP_RECT, color, left, top, right, bottom, 0);
+    }
+
+    @Override
+    public void drawPoints(float[] points, int offset, int count, float size, int color) {
+        if (this.points.length < pointsSize + count) {
+            this.points = Arrays.copyOf(this.points, Math.max(this.points.length * 2, pointsSize + count));
+        }
+        System.arraycopy(points, offset, this.points, pointsSize, count);
+        add(OP_POINTS, color, pointsSize, count, size, 0, 0);
+        pointsSize += count;
+    }
+
+    @Override
+    public void drawLine(float x0, float y0, float x1, float y1, float width, int color) {
+        add(OP_LINE, color, x0, y0, x1, y1, width);
+    }
+
+    @Override
+    public void drawThumb(float x, float y, float radius, int color) {
+        add(OP_THUMB, color, x, y, radius, 0, 0);
+    }
+
+    @Override
+    public void drawColumns(float left, float bottom, float[] heights, int count, int color) {
+        if (this.heights.length < heightsSize + count) {
+            this.heights = Arrays.copyOf(this.heights, Math.max(this.heights.length * 2, heightsSize + count));
+        }
+        System.arraycopy(heights, 0, this.heights, heightsSize, count);
+        add(OP_COLUMNS, color, left, bottom, heightsSize, count, 0);
+        heightsSize += count;
+    }
+
+    @Override
+    public void drawText(String text, float centerX, float baseline, int color) {
+        if (textsSize == texts.length) {
+            texts = Arrays.copyOf(texts, textsSize * 2);
+        }
+        texts[textsSize] = text;
+        add(OP_TEXT, color, centerX, baseline, textsSize, 0, 0);
+        ++textsSize;
+    }
+
+    private void add(int type, int color, float a, float b, float c, float d, float e) {
+        if (opCount == types.length) {
+            types = Arrays.copyOf(types, opCount * 2);
+            colors = Arrays.copyOf(colors, opCount * 2);
+            args = Arrays.copyOf(args, opCount * 2 * ARGS);
+        }
+        types[opCount] = type;
+        colors[opCount] = color;
+        int base = opCount * ARGS;
+        args[base] = a;
+        args[base + 1] = b;
+        args[base + 2] = c;
+        args[base + 3] = d;
+        args[base + 4] = e;
+        ++opCount;
+    }
+
+    public int getOpCount() {
+        return opCount;
+    }
+
+    public int getOpType(int op) {
+        return types[op];
+    }
+
+    public int getColor(int op) {
+        return colors[op];
+    }
+
+    public float getArg(int op, int i) {
+        return args[op * ARGS + i];
+    }
+
+    /**
+     * 所有记录下来的圆点,按 x, y 交替排列
+     */
+    public float[] getPoints() {
+        return points;
+    }
+
+    /**
+     * @return 画出的圆点总数
+     */
+    public int getPointCount() {
+        return pointsSize / 2;
+    }
+
+    /**
+     * 所有记录下来的柱子高度
+     */
+    public float[] getColumnHeights() {
+        return heights;
+    }
+
+    /**
+     * 第 i 个记录下来的文字
+     */
+    public String getText(int i) {
+        return texts[i];
+    }
+
+    /**
+     * @return 画出的文字个数
+     */
+    public int getTextCount() {
+        return textsSize;
+    }
+
+    /**
+     * 在 width x height 的区域内按像素中心采样,统计被画了不止一次的像素。
+     * 同一个像素被画 n 次记为 n - 1。文字没有记录字形,不计入
+     */
+    public long overdraw(int width, int height) {
+        int[] coverage = new int[width * height];
+        for (int op = 0; op < opCount; ++op) {
+            int base = op * ARGS;
+            switch (types[op]) {
+                case OP_RECT:
+                    cover(coverage, width, height, args[base], args[base + 1], args[base + 2], args[base + 3],
+                            Float.NaN, 0, 0, 0, 0);
+                    break;
+                case OP_POINTS: {
+                    int offset = (int) args[base];
+                    int count = (int) args[base + 1];
+                    float r = args[base + 2] / 2;
+                    for (int i = offset; i < offset + count; i += 2) {
+                        cover(coverage, width, height, points[i] - r, points[i + 1] - r,
+                                points[i] + r, points[i + 1] + r, r, points[i], points[i + 1], points[i], points[i + 1]);
+                    }
+                    break;
+                }
+                case OP_COLUMNS: {
+                    float left = args[base];
+                    float bottom = args[base + 1];
+                    int offset = (int) args[base + 2];
+                    int count = (int) args[base + 3];
+                    for (int i = 0; i < count; ++i) {
+                        cover(coverage, width, height, left + i, bottom - heights[offset + i], left + i + 1, bottom,
+                                Float.NaN, 0, 0, 0, 0);
+                    }
+                    break;
+                }
+                case OP_TEXT:
+                    break;
+                case OP_LINE: {
+                    float r = args[base + 4] / 2;
+                    float x0 = args[base];
+                    float y0 = args[base + 1];
+                    float x1 = args[base + 2];
+                    float y1 = args[base + 3];
+                    cover(coverage, width, height, Math.min(x0, x1) - r, Math.min(y0, y1) - r,
+                            Math.max(x0, x1) + r, Math.max(y0, y1) + r, r, x0, y0, x1, y1);
+                    break;
+                }
+                default: {
+                    float x = args[base];
+                    float y = args[base + 1];
+                    float r = args[base + 2];
+                    cover(coverage, width, height, x - r, y - r, x + r, y + r, r, x, y, x, y);
+                    break;
+                }
+            }
+        }
+        long overdraw = 0;
+        for (int c : coverage) {
+            if (c > 1) {
+                overdraw += c - 1;
+            }
+        }
+        return overdraw;
+    }
+
+    /**
+     * 覆盖 [l, r) x [t, b) 中的像素;r 不是 NaN 时只覆盖到线段 (x0, y0)-(x1, y1) 的距离不超过 radius 的像素
+     */
+    private static void cover(int[] coverage, int width, int height, float l, float t, float r, float b,
+                              float radius, float x0, float y0, float x1, float y1) {
+        int i0 = Math.max(0, (int) Math.floor(l));
+        int i1 = Math.min(width - 1, (int) Math.ceil(r));
+        int j0 = Math.max(0, (int) Math.floor(t));
+        int j1 = Math.min(height - 1, (int) Math.ceil(b));
+        float dx = x1 - x0;
+        float dy = y1 - y0;
+        float length2 = dx * dx + dy * dy;
+        for (int j = j0; j <= j1; ++j) {
+            for (int i = i0; i <= i1; ++i) {
+                float px = i + 0.5f;
+                float py = j + 0.5f;
+                if (Float.isNaN(radius)) {
+                    if (px < l || px >= r || py < t || py >= b) {
+                        continue;
+                    }
+                } else {
+                    float u = length2 > 0 ? ((px - x0) * dx + (py - y0) * dy) / length2 : 0;
+                    u = Math.max(0, Math.min(1, u));
+                    float ex = px - (x0 + u * dx);
+                    float ey = py - (y0 + u * dy);
+                    if (ex * ex + ey * ey > radius * radius) {
+                        continue;
+                    }
+                }
+                ++coverage[j * width + i];
+            }
+        }
+    }
+
+    /**
+     * 导出成一行一个操作的文本,坐标保留两位小数,用来和保存的结果逐行比较
+     */
+    public String toCommands() {
+        StringBuilder sb = new StringBuilder();
+        for (int op = 0; op < opCount; ++op) {
+            int base = op * ARGS;
+            String color = String.format(Locale.US, "%08x", colors[op]);
+            switch (types[op]) {
+                case OP_RECT:
+                    sb.append("rect ").append(color);
+                    appendFloats(sb, args, base, 4);
+                    break;
+                case OP_POINTS: {
+                    int offset = (int) args[base];
+                    int count = (int) args[base + 1];
+                    sb.append("points ").append(color);
+                    appendFloats(sb, args, base + 2, 1);
+                    sb.append(" n=").append(count / 2);
+                    appendFloats(sb, points, offset, count);
+                    break;
+                }
+                case OP_COLUMNS: {
+                    int count = (int) args[base + 3];
+                    sb.append("columns ").append(color);
+                    appendFloats(sb, args, base, 2);
+                    sb.append(" n=").append(count);
+                    appendFloats(sb, heights, (int) args[base + 2], count);
+                    break;
+                }
+                case OP_TEXT:
+                    sb.append("text ").append(color);
+                    appendFloats(sb, args, base, 2);
+                    sb.append(' ').append(texts[(int) args[base + 2]]);
+                    break;
+                case OP_LINE:
+                    sb.append("line ").append(color);
+                    appendFloats(sb, args, base, 5);
+                    break;
+                default:
+                    sb.append("thumb ").append(color);
+                    appendFloats(sb, args, base, 3);
+                    break;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static void appendFloats(StringBuilder sb, float[] values, int offset, int count) {
+        for (int i = offset; i < offset + count; ++i) {
+            sb.append(' ').append(String.format(Locale.US, "%.2f", values[i]));
+        }
+    }
+}
@@ -0,0 +1,393 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 把横线和圆点编译成最少的绘制操作。
+ * <p>
+ * 同一种颜色的圆点合并成一次 drawPoints(圆头画笔,线宽等于圆的直径),
+ * 选中和没选中的横线切成互不重叠、在整像素处相接的几段,操作数和 rangeCount 无关。
+ * 区间模式下只填充两个滑块之间的部分,没选中的圆点和横线分成左右两段。
+ * 横线比圆点粗时,完全落在同色横线内的圆点不画。
+ * 绘制顺序与原来逐个画圆时一致,所以像素结果相同:
+ * 没选中的圆点、没选中的横线、选中的圆点、选中的横线。
+ * 圆点比横线粗时,伸出横线上下的部分只能单独画,横线所在的一条仍然会画两次。
+ * <p>
+ * 只有几何信息、滑块位置、颜色或线宽变化时才重新编译。
+ * 取代了把没选中的横线和圆点录制成 Picture 的背景缓存,那种做法的背景和选中部分互相重叠。
+ * 所有坐标都是图形的外边缘,矩形用填充画笔画,不需要再考虑线宽。
+ * <p>
+ * 点比像素还密时按细节层次降级,绘制量只和宽度有关:
+ * 间距小于 {@link #setMinMarkSpacing(float)} 时每隔几个点才画一个;
+ * 间距不到圆点直径的 1/4 时圆点已经连成一条带,直接画两段圆头线。
+ */
+public final class RenderPlan {
+
+    public static final int OP_RECT = 0;
+
+    /** 参数是 {@link #getPoints()} 中的起始下标和 float 个数 */
+    public static final int OP_POINTS = 1;
+
+    /** 圆头线段,参数是 x0, y0, x1, y1,线宽与圆点相同 */
+    public static final int OP_LINE = 2;
+
+    /** 每个点都画 */
+    public static final int LOD_FULL = 0;
+
+    /** 每隔 stride 个点画一个,最后一个点总是画出来 */
+    public static final int LOD_DECIMATED = 1;
+
+    /** 圆点连成一条带,用线段代替 */
+    public static final int LOD_CONTINUOUS = 2;
+
+    /** 三段圆点各自去掉被横线盖住的中间部分后最多分成两次,再加三段横线 */
+    private static final int MAX_OPS = 9;
+
+    private final int[] types = new int[MAX_OPS];
+
+    private final int[] colors = new int[MAX_OPS];
+
+    private final float[] args = new float[MAX_OPS * 4];
+
+    private int opCount;
+
+    private float[] points = new float[0];
+
+    private float pointSize;
+
+    private int pointsVersion = -1;
+
+    private float pointsSize;
+
+    private float minMarkSpacing;
+
+    private int lod = LOD_FULL;
+
+    private int stride = 1;
+
+    /** 实际画出的圆点数 */
+    private int markCount;
+
+    /** 最后一个点不在 stride 的整数倍上时,额外加在末尾 */
+    private boolean lastAppended;
+
+    private boolean compiled;
+
+    private int version;
+
+    private float fillFromX;
+
+    private float fillX;
+
+    private int filledColor;
+
+    private int emptyColor;
+
+    private float strokeWidth;
+
+    /**
+     * @param fillX       选中部分的右端,即滑块当前的横坐标
+     * @param strokeWidth 画笔的描边宽度,圆和横线都会向外扩展一半
+     * @return 是否重新编译了
+     */
+    public boolean compile(SliderGeometry geometry, float fillX,
+                           int filledColor, int emptyColor, float strokeWidth) {
+        return compile(geometry, Float.NEGATIVE_INFINITY, fillX, filledColor, emptyColor, strokeWidth);
+    }
+
+    /**
+     * 区间模式:只填充 [fillFromX, fillToX] 之间的部分
+     *
+     * @param fillFromX 左边滑块的横坐标,{@link Float#NEGATIVE_INFINITY} 表示从头开始填充
+     * @param fillToX   右边滑块的横坐标
+     * @return 是否重新编译了
+     */
+    public boolean compile(SliderGeometry geometry, float fillFromX, float fillToX,
+                           int filledColor, int emptyColor, float strokeWidth) {
+        if (compiled && version == geometry.getVersion()
+                && this.fillFromX == fillFromX && this.fillX == fillToX
+                && this.filledColor == filledColor && this.emptyColor == emptyColor
+                && this.strokeWidth == strokeWidth) {
+            return false;
+        }
+        float fillX = fillToX;
+        boolean range = fillFromX != Float.NEGATIVE_INFINITY;
+        compiled = true;
+        version = geometry.getVersion();
+        this.fillFromX = fillFromX;
+        this.fillX = fillX;
+        this.filledColor = filledColor;
+        this.emptyColor = emptyColor;
+        this.strokeWidth = strokeWidth;
+
+        int rangeCount = geometry.getRangeCount();
+        pointSize = geometry.getSlotRadius() * 2 + strokeWidth;
+        updatePoints(geometry);
+
+        float half = strokeWidth / 2;
+        float slotRadius = geometry.getSlotRadius();
+        int y = geometry.getCenterY();
+        int barHalf = geometry.getBarHeight() >> 1;
+        float top = y - barHalf - half;
+        float bottom = y + barHalf + half;
+
+        int filledFrom = range ? (int) fillFromX : (int) (geometry.getFirstSlotX() - slotRadius * 4);
+        int filledTo = (int) fillX;
+        int emptyFrom = (int) geometry.getFirstSlotX();
+        int emptyTo = (int) (geometry.getLastSlotX() + slotRadius * 4);
+
+        float filledLeft = range ? pixelEdge(filledFrom - half) : filledFrom - half;
+        float filledRight = Math.max(filledLeft, pixelEdge(filledTo + half));
+        float emptyLeft = emptyFrom - half;
+        float emptyRight = emptyTo + half;
+        // 没选中的横线在选中的两边各一段,接缝在整像素上,互不重叠也不会被抗锯齿露出底色
+        float leftEmptyRight = range ? Math.min(filledLeft, emptyRight) : emptyLeft;
+        float rightEmptyLeft = Math.max(emptyLeft, filledRight);
+
+        int start = range ? geometry.countBefore(fillFromX) : 0;
+        int filled = Math.max(start, geometry.filledCount(fillX));
+        // 横线比圆点粗时圆点才可能被横线完全盖住
+        float cover = bottom - top > pointSize ? pointSize / 2 : Float.POSITIVE_INFINITY;
+
+        opCount = 0;
+        if (lod == LOD_CONTINUOUS) {
+            if (start > 0) {
+                addLine(emptyColor, geometry.getFirstSlotX(), geometry.getSlotX(start - 1), y,
+                        emptyLeft + cover, leftEmptyRight - cover);
+            }
+            if (filled < rangeCount) {
+                addLine(emptyColor, geometry.getSlotX(filled), geometry.getLastSlotX(), y,
+                        rightEmptyLeft + cover, emptyRight - cover);
+            }
+        } else {
+            int startMarks = filledMarks(start, rangeCount);
+            int filledMarks = filledMarks(filled, rangeCount);
+            addPoints(emptyColor, 0, startMarks, emptyLeft + cover, leftEmptyRight - cover);
+            addPoints(emptyColor, filledMarks, markCount, rightEmptyLeft + cover, emptyRight - cover);
+        }
+        if (emptyLeft < leftEmptyRight) {
+            addOp(OP_RECT, emptyColor, emptyLeft, top, leftEmptyRight, bottom);
+        }
+        if (rightEmptyLeft < emptyRight) {
+            addOp(OP_RECT, emptyColor, rightEmptyLeft, top, emptyRight, bottom);
+        }
+        if (lod == LOD_CONTINUOUS) {
+            if (filled > start) {
+                addLine(filledColor, geometry.getSlotX(start), geometry.getSlotX(filled - 1), y,
+                        filledLeft + cover, filledRight - cover);
+            }
+        } else {
+            addPoints(filledColor, filledMarks(start, rangeCount), filledMarks(filled, rangeCount),
+                    filledLeft + cover, filledRight - cover);
+        }
+        if (filledLeft < filledRight) {
+            addOp(OP_RECT, filledColor, filledLeft, top, filledRight, bottom);
+        }
+        return true;
+    }
+
+    /**
+     * 离 x 最近的像素边界。按像素中心采样时,边界放在这里和放在 x 覆盖的像素完全相同
+     */
+    private static float pixelEdge(float x) {
+        return (float) Math.ceil(x - 0.5f);
+    }
+
+    /**
+     * 画第 [from, to) 个圆点,圆心在 (coveredFrom, coveredTo) 内的圆点被同色的横线完全盖住,不画
+     */
+    private void addPoints(int color, int from, int to, float coveredFrom, float coveredTo) {
+        int skipFrom = to;
+        int skipTo = to;
+        if (coveredFrom < coveredTo) {
+            // 圆点按横坐标递增,被盖住的是连续的一段
+            skipFrom = firstMarkAfter(from, to, coveredFrom, false);
+            skipTo = firstMarkAfter(skipFrom, to, coveredTo, true);
+        }
+        if (skipFrom > from) {
+            addOp(OP_POINTS, color, from * 2, (skipFrom - from) * 2, 0, 0);
+        }
+        if (to > skipTo) {
+            addOp(OP_POINTS, color, skipTo * 2, (to - skipTo) * 2, 0, 0);
+        }
+    }
+
+    /**
+     * 第 [from, to) 个圆点中第一个横坐标大于 x(inclusive 时不小于 x)的下标,都不满足时返回 to
+     */
+    private int firstMarkAfter(int from, int to, float x, boolean inclusive) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            float px = points[mid * 2];
+            if (inclusive ? px < x : px <= x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 画 x0 到 x1 的圆头线段,整段都在 (coveredFrom, coveredTo) 内时被同色的横线完全盖住,不画
+     */
+    private void addLine(int color, float x0, float x1, float y, float coveredFrom, float coveredTo) {
+        if (x0 <= coveredFrom || x1 >= coveredTo) {
+            addOp(OP_LINE, color, x0, y, x1, y);
+        }
+    }
+
+    /**
+     * 画出来的圆点中被选中的个数
+     *
+     * @param filled 被选中的点数
+     */
+    private int filledMarks(int filled, int rangeCount) {
+        if (stride == 1) {
+            return filled;
+        }
+        int marks = (filled + stride - 1) / stride;
+        if (lastAppended && filled == rangeCount) {
+            ++marks;
+        }
+        return marks;
+    }
+
+    /**
+     * 设置相邻两个圆点之间最小的像素距离,点更密时按间隔抽取
+     */
+    public void setMinMarkSpacing(float px) {
+        if (px < 0) {
+            throw new IllegalArgumentException("min mark spacing must be >= 0");
+        }
+        if (minMarkSpacing != px) {
+            minMarkSpacing = px;
+            compiled = false;
+            pointsVersion = -1;
+        }
+    }
+
+    public float getMinMarkSpacing() {
+        return minMarkSpacing;
+    }
+
+    /**
+     * @return {@link #LOD_FULL}, {@link #LOD_DECIMATED} 或 {@link #LOD_CONTINUOUS}
+     */
+    public int getLevelOfDetail() {
+        return lod;
+    }
+
+    /**
+     * @return 实际画出的圆点数,连续模式下为 0
+     */
+    public int getMarkCount() {
+        return markCount;
+    }
+
+    private void updatePoints(SliderGeometry geometry) {
+        if (pointsVersion == geometry.getVersion() && pointsSize == pointSize) {
+            return;
+        }
+        pointsVersion = geometry.getVersion();
+        pointsSize = pointSize;
+        int rangeCount = geometry.getRangeCount();
+        float pitch = geometry.getSpacing();
+        if (pitch * 4 <= pointSize) {
+            lod = LOD_CONTINUOUS;
+            stride = 1;
+            markCount = 0;
+            lastAppended = false;
+            return;
+        }
+        if (pitch < minMarkSpacing) {
+            lod = LOD_DECIMATED;
+            stride = (int) Math.ceil(minMarkSpacing / pitch);
+        } else {
+            lod = LOD_FULL;
+            stride = 1;
+        }
+        lastAppended = (rangeCount - 1) % stride != 0;
+        markCount = (rangeCount - 1) / stride + 1 + (lastAppended ? 1 : 0);
+        if (points.length < markCount * 2) {
+            points = new float[markCount * 2];
+        }
+        float[] slotPositions = geometry.getSlotPositions();
+        float y = geometry.getCenterY();
+        int mark = 0;
+        for (int i = 0; i < rangeCount; i += stride) {
+            points[mark * 2] = slotPositions[i];
+            points[mark * 2 + 1] = y;
+            ++mark;
+        }
+        if (lastAppended) {
+            points[mark * 2] = slotPositions[rangeCount - 1];
+            points[mark * 2 + 1] = y;
+        }
+    }
+
+    /**
+     * 按顺序执行编译好的操作
+     *
+     * @return 绘制调用的次数
+     */
+    public int draw(SliderCanvas canvas) {
+        for (int op = 0; op < opCount; ++op) {
+            int base = op * 4;
+            if (types[op] == OP_RECT) {
+                canvas.drawRect(args[base], args[base + 1], args[base + 2], args[base + 3], colors[op]);
+            } else if (types[op] == OP_LINE) {
+                canvas.drawLine(args[base], args[base + 1], args[base + 2], args[base + 3],
+                        pointSize, colors[op]);
+            } else {
+                canvas.drawPoints(points, (int) args[base], (int) args[base + 1], pointSize, colors[op]);
+            }
+        }
+        return opCount;
+    }
+
+    private void addOp(int type, int color, float a, float b, float c, float d) {
+        types[opCount] = type;
+        colors[opCount] = color;
+        int base = opCount * 4;
+        args[base] = a;
+        args[base + 1] = b;
+        args[base + 2] = c;
+        args[base + 3] = d;
+        ++opCount;
+    }
+
+    public int getOpCount() {
+        return opCount;
+    }
+
+    public int getOpType(int op) {
+        return types[op];
+    }
+
+    public int getOpColor(int op) {
+        return colors[op];
+    }
+
+    /**
+     * 第 op 个操作的第 i 个参数:矩形为 left, top, right, bottom;圆点为 offset, count;
+     * 线段为 x0, y0, x1, y1
+     */
+    public float getOpArg(int op, int i) {
+        return args[op * 4 + i];
+    }
+
+    /**
+     * 所有圆点的坐标,按 x, y 交替排列
+     */
+    public float[] getPoints() {
+        return points;
+    }
+
+    /**
+     * 画圆点和线段时的线宽,即圆的外直径
+     */
+    public float getPointSize() {
+        return pointSize;
+    }
+}
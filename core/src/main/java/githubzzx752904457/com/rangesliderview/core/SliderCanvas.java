@@ -0,0 +1,37 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 滑块用到的几种绘制操作,可以画到 Android 的 Canvas 上,也可以记录在内存中用于测试。
+ * <p>
+ * 颜色是 ARGB,坐标都是图形的外边缘,实现不需要再考虑画笔的描边宽度。
+ */
+public interface SliderCanvas {
+
+    /** 填充矩形 */
+    void drawRect(float left, float top, float right, float bottom, int color);
+
+    /**
+     * 一批直径为 size 的圆点
+     *
+     * @param points 按 x, y 交替排列
+     * @param offset 起始下标
+     * @param count  float 的个数
+     */
+    void drawPoints(float[] points, int offset, int count, float size, int color);
+
+    /** 线宽为 width 的圆头线段 */
+    void drawLine(float x0, float y0, float x1, float y1, float width, int color);
+
+    /** 以 (x, y) 为中心、半径为 radius 的滑块 */
+    void drawThumb(float x, float y, float radius, int color);
+
+    /**
+     * 底边对齐的一排柱子,每根 1 像素宽,第 i 根占 [left + i, left + i + 1),从 bottom 向上高 heights[i]
+     *
+     * @param count 柱子的个数
+     */
+    void drawColumns(float left, float bottom, float[] heights, int count, int color);
+
+    /** 以 centerX 水平居中、基线为 baseline 的一行文字 */
+    void drawText(String text, float centerX, float baseline, int color);
+}
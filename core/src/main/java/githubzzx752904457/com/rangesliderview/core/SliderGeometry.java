@@ -0,0 +1,312 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 滑块的几何计算:半径、每个点的坐标、吸附和点击判断
+ */
+public final class SliderGeometry {
+
+    /** {@link #pickThumb} 的结果:没有点中滑块 */
+    public static final int THUMB_NONE = -1;
+
+    public static final int THUMB_MIN = 0;
+
+    public static final int THUMB_MAX = 1;
+
+    /** 两个滑块重合,要等拖动方向确定后再选 */
+    public static final int THUMB_EITHER = 2;
+
+    private final SlotSnapper snapper = new SlotSnapper();
+
+    private float[] slotPositions = new float[SliderModel.DEFAULT_RANGE_COUNT];
+
+    private int rangeCount = SliderModel.DEFAULT_RANGE_COUNT;
+
+    private int barHeight;
+
+    private float radius;
+
+    private float slotRadius;
+
+    private float spacing;
+
+    /** 为 null 时按下标等分 */
+    private SliderScale scale;
+
+    private SliderValues values;
+
+    private int centerY;
+
+    private int version;
+
+    /** 上一次 {@link #update} 的输入,全部相同时不用重新计算 */
+    private boolean valid;
+
+    private int lastWidth;
+
+    private int lastHeight;
+
+    private int lastPaddingLeft;
+
+    private int lastPaddingTop;
+
+    private int lastPaddingRight;
+
+    private int lastPaddingBottom;
+
+    private int lastRangeCount;
+
+    private float lastBarHeightPercent;
+
+    private float lastSlotRadiusPercent;
+
+    private float lastSliderRadiusPercent;
+
+    /** {@link #columnEdges()} 复用的数组,列数变化时才重新创建 */
+    private double[] columnEdges;
+
+    public SliderGeometry() {
+        snapper.setPositions(slotPositions, rangeCount);
+    }
+
+    /**
+     * 只有尺寸、padding、点数或半径比例变化时才重新计算半径和坐标,半径按整个 View 的高度计算
+     *
+     * @return 是否重新计算了
+     */
+    public boolean update(SliderModel model, int width, int height,
+                          int paddingLeft, int paddingTop, int paddingRight, int paddingBottom) {
+        if (valid && lastWidth == width && lastHeight == height
+                && lastPaddingLeft == paddingLeft && lastPaddingTop == paddingTop
+                && lastPaddingRight == paddingRight && lastPaddingBottom == paddingBottom
+                && lastRangeCount == model.getRangeCount()
+                && lastBarHeightPercent == model.getBarHeightPercent()
+                && lastSlotRadiusPercent == model.getSlotRadiusPercent()
+                && lastSliderRadiusPercent == model.getSliderRadiusPercent()) {
+            return false;
+        }
+        valid = true;
+        lastWidth = width;
+        lastHeight = height;
+        lastPaddingLeft = paddingLeft;
+        lastPaddingTop = paddingTop;
+        lastPaddingRight = paddingRight;
+        lastPaddingBottom = paddingBottom;
+        lastRangeCount = model.getRangeCount();
+        lastBarHeightPercent = model.getBarHeightPercent();
+        lastSlotRadiusPercent = model.getSlotRadiusPercent();
+        lastSliderRadiusPercent = model.getSliderRadiusPercent();
+        updateRadius(model, height);
+        layout(model, width, height, paddingLeft, paddingTop, paddingRight, paddingBottom);
+        return true;
+    }
+
+    /**
+     * 按每个点的数值排列点的位置,下一次 {@link #update} 时重新计算坐标
+     *
+     * @param scale  为 null 时按下标等分
+     * @param values 每个点的数值;为 null、个数和点数不一致或不能用 scale 排列时也按下标等分。
+     *               {@link #valueAtX} 也用它把坐标换算成数值
+     */
+    public void setScale(SliderScale scale, SliderValues values) {
+        this.scale = scale;
+        this.values = values;
+        valid = false;
+    }
+
+    public SliderScale getScale() {
+        return scale;
+    }
+
+    /**
+     * 根据 View 的高度更新横线高度和半径
+     */
+    public void updateRadius(SliderModel model, int height) {
+        barHeight = (int) (height * model.getBarHeightPercent());
+        radius = height * model.getSliderRadiusPercent();
+        slotRadius = height * model.getSlotRadiusPercent();
+        ++version;
+    }
+
+    /**
+     * 计算每个点的坐标,垂直居中。第一个点和最后一个点离两边各有半个间距,
+     * 中间的点默认等分,设置了 {@link #setScale} 时按数值排列
+     */
+    public void layout(SliderModel model, int width, int height,
+                       int paddingLeft, int paddingTop, int paddingRight, int paddingBottom) {
+        rangeCount = model.getRangeCount();
+        if (slotPositions.length < rangeCount) {
+            slotPositions = new float[rangeCount];
+        }
+
+        int w = width - paddingLeft - paddingRight;
+        int h = height - paddingTop - paddingBottom;
+
+        /** 每两个点之间的平均空间,点很多时可能小于 1 像素,不能取整 */
+        spacing = (float) w / rangeCount;
+
+        /** 垂直居中显示 */
+        centerY = paddingTop + h / 2;
+        float x0 = paddingLeft + spacing / 2;
+
+        // 数值都相同(例如分位数只见过一个数据)或超出刻度的定义域时按下标等分
+        if (scale != null && values != null && values.size() == rangeCount && rangeCount > 1
+                && scale.accepts(values)) {
+            scale.layout(values, x0, x0 + (rangeCount - 1) * spacing, slotPositions);
+            snapper.setPositions(slotPositions, rangeCount);
+        } else {
+            /** 保存每个位置点的坐标,直接由下标算出,避免累加误差 */
+            for (int i = 0; i < rangeCount; ++i) {
+                slotPositions[i] = x0 + i * spacing;
+            }
+            snapper.setUniformPositions(slotPositions, rangeCount, x0, spacing);
+        }
+        ++version;
+    }
+
+    /**
+     * 每次重新计算半径或坐标后加一,用来判断依赖几何信息的缓存是否过期
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    /**
+     * 点是否等间距,等间距时触摸查找最近的点直接用除法
+     */
+    public boolean isUniform() {
+        return snapper.isUniform();
+    }
+
+    public float[] getSlotPositions() {
+        return slotPositions;
+    }
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public float getSlotX(int index) {
+        return slotPositions[index];
+    }
+
+    public float getFirstSlotX() {
+        return snapper.first();
+    }
+
+    public float getLastSlotX() {
+        return snapper.last();
+    }
+
+    public int getBarHeight() {
+        return barHeight;
+    }
+
+    public float getRadius() {
+        return radius;
+    }
+
+    public float getSlotRadius() {
+        return slotRadius;
+    }
+
+    /**
+     * 相邻两个点的平均距离,点等分时就是每两个点的距离
+     */
+    public float getSpacing() {
+        return spacing;
+    }
+
+    public int getCenterY() {
+        return centerY;
+    }
+
+    /**
+     * @return 离 x 最近的点的下标
+     */
+    public int nearestIndex(float x) {
+        return snapper.nearestIndex(x);
+    }
+
+    /**
+     * 横坐标 x 处对应的数值,在相邻两个点之间线性插值,超出两端时取两端的数值。
+     * 没有数值或个数和点数不一致时按下标计算
+     */
+    public double valueAtX(float x) {
+        int k = snapper.countAtOrBefore(x) - 1;
+        if (k < 0) {
+            return valueOf(0);
+        }
+        if (k >= rangeCount - 1) {
+            return valueOf(rangeCount - 1);
+        }
+        float x0 = slotPositions[k];
+        float x1 = slotPositions[k + 1];
+        double v0 = valueOf(k);
+        return x1 > x0 ? v0 + (valueOf(k + 1) - v0) * (x - x0) / (x1 - x0) : v0;
+    }
+
+    private double valueOf(int index) {
+        return values != null && values.size() == rangeCount ? values.valueAt(index) : index;
+    }
+
+    /**
+     * 第一个点到最后一个点之间按 1 像素分列,每一列左边界对应的数值,最后一项是最后一个点的数值。
+     * 返回的数组会被下一次调用覆盖,需要保留时自行复制
+     *
+     * @return 长度为列数 + 1,两个点重合时返回 null
+     */
+    public double[] columnEdges() {
+        float first = getFirstSlotX();
+        int columns = (int) Math.ceil(getLastSlotX() - first);
+        if (columns < 1) {
+            return null;
+        }
+        double[] edges = columnEdges;
+        if (edges == null || edges.length != columns + 1) {
+            edges = columnEdges = new double[columns + 1];
+        }
+        for (int c = 0; c < columns; ++c) {
+            edges[c] = valueAtX(first + c);
+        }
+        edges[columns] = valueOf(rangeCount - 1);
+        return edges;
+    }
+
+    /**
+     * @return 滑块在 x 时需要填充的点的个数
+     */
+    public int filledCount(float x) {
+        return snapper.countAtOrBefore(x);
+    }
+
+    /**
+     * @return 坐标 < x 的点的个数
+     */
+    public int countBefore(float x) {
+        return snapper.countAtOrBefore(Math.nextAfter(x, Double.NEGATIVE_INFINITY));
+    }
+
+    /**
+     * 区间模式下判断 (x, y) 点中了哪个滑块,只比较到两个滑块的距离,和点数无关
+     *
+     * @return {@link #THUMB_NONE}, {@link #THUMB_MIN}, {@link #THUMB_MAX} 或 {@link #THUMB_EITHER}
+     */
+    public int pickThumb(float minX, float maxX, float thumbY, float x, float y) {
+        if (minX == maxX) {
+            return isInThumb(minX, thumbY, x, y) ? THUMB_EITHER : THUMB_NONE;
+        }
+        // 距离相等时取左边的滑块
+        if (x - minX <= maxX - x) {
+            return isInThumb(minX, thumbY, x, y) ? THUMB_MIN : THUMB_NONE;
+        }
+        return isInThumb(maxX, thumbY, x, y) ? THUMB_MAX : THUMB_NONE;
+    }
+
+    /**
+     * 判断 (x, y) 是否点在以 (thumbX, thumbY) 为中心的滑块上
+     */
+    public boolean isInThumb(float thumbX, float thumbY, float x, float y) {
+        return thumbX - radius <= x && x <= thumbX + radius &&
+                thumbY - radius <= y && y <= thumbY + radius;
+    }
+}
@@ -0,0 +1,38 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * onMeasure 的计算,测量模式的取值与 android.view.View.MeasureSpec 一致
+ */
+public final class SliderMeasure {
+
+    public static final int MODE_UNSPECIFIED = 0;
+
+    public static final int MODE_EXACTLY = 1 << 30;
+
+    public static final int MODE_AT_MOST = 2 << 30;
+
+    private SliderMeasure() {
+    }
+
+    /**
+     * @param desired 不受约束时希望的大小
+     * @return 按测量模式约束后的大小
+     */
+    public static int resolve(int specMode, int specSize, int desired) {
+        if (specMode == MODE_EXACTLY) {
+            return specSize;
+        }
+        if (specMode == MODE_AT_MOST) {
+            return Math.min(desired, specSize);
+        }
+        return desired;
+    }
+
+    public static int desiredWidth(int specSize, int paddingLeft, int paddingRight, int strokeWidth, float radius) {
+        return specSize + paddingLeft + paddingRight + (2 * strokeWidth) + (int) (2 * radius);
+    }
+
+    public static int desiredHeight(int contentHeight, int paddingTop, int paddingBottom, int strokeWidth) {
+        return contentHeight + paddingTop + paddingBottom + (2 * strokeWidth);
+    }
+}
@@ -0,0 +1,122 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 滑块的配置和当前选中的下标,不依赖 Android。
+ * <p>
+ * 区间模式下有两个滑块,选中的是 [minIndex, maxIndex],两个滑块可以重合但不能交叉。
+ */
+public final class SliderModel {
+
+    public static final float DEFAULT_BAR_HEIGHT_PERCENT = 0.10f;
+
+    public static final float DEFAULT_SLOT_RADIUS_PERCENT = 0.125f;
+
+    public static final float DEFAULT_SLIDER_RADIUS_PERCENT = 0.25f;
+
+    public static final int DEFAULT_RANGE_COUNT = 5;
+
+    private int rangeCount = DEFAULT_RANGE_COUNT;
+
+    private float barHeightPercent = DEFAULT_BAR_HEIGHT_PERCENT;
+
+    private float slotRadiusPercent = DEFAULT_SLOT_RADIUS_PERCENT;
+
+    private float sliderRadiusPercent = DEFAULT_SLIDER_RADIUS_PERCENT;
+
+    private int currentIndex;
+
+    private boolean rangeMode;
+
+    private int minIndex;
+
+    private int maxIndex = DEFAULT_RANGE_COUNT - 1;
+
+    public int getRangeCount() {
+        return rangeCount;
+    }
+
+    public void setRangeCount(int rangeCount) {
+        if (rangeCount < 2) {
+            throw new IllegalArgumentException("rangeCount must be >= 2");
+        }
+        this.rangeCount = rangeCount;
+        if (currentIndex >= rangeCount) {
+            currentIndex = rangeCount - 1;
+        }
+        if (maxIndex >= rangeCount) {
+            maxIndex = rangeCount - 1;
+        }
+        if (minIndex > maxIndex) {
+            minIndex = maxIndex;
+        }
+    }
+
+    public float getBarHeightPercent() {
+        return barHeightPercent;
+    }
+
+    public void setBarHeightPercent(float percent) {
+        if (percent <= 0.0 || percent > 1.0) {
+            throw new IllegalArgumentException("Bar height percent must be in (0, 1]");
+        }
+        this.barHeightPercent = percent;
+    }
+
+    public float getSlotRadiusPercent() {
+        return slotRadiusPercent;
+    }
+
+    public void setSlotRadiusPercent(float percent) {
+        if (percent <= 0.0 || percent > 1.0) {
+            throw new IllegalArgumentException("Slot radius percent must be in (0, 1]");
+        }
+        this.slotRadiusPercent = percent;
+    }
+
+    public float getSliderRadiusPercent() {
+        return sliderRadiusPercent;
+    }
+
+    public void setSliderRadiusPercent(float percent) {
+        if (percent <= 0.0 || percent > 1.0) {
+            throw new IllegalArgumentException("Slider radius percent must be in (0, 1]");
+        }
+        this.sliderRadiusPercent = percent;
+    }
+
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public void setCurrentIndex(int index) {
+        if (index < 0 || index >= rangeCount) {
+            throw new IllegalArgumentException("Attempted to set index=" + index + " out of range [0," + rangeCount + "]");
+        }
+        this.currentIndex = index;
+    }
+
+    public boolean isRangeMode() {
+        return rangeMode;
+    }
+
+    public void setRangeMode(boolean rangeMode) {
+        this.rangeMode = rangeMode;
+    }
+
+    public int getMinIndex() {
+        return minIndex;
+    }
+
+    public int getMaxIndex() {
+        return maxIndex;
+    }
+
+    public void setRange(int minIndex, int maxIndex) {
+        if (minIndex < 0 || maxIndex >= rangeCount || minIndex > maxIndex) {
+            throw new IllegalArgumentException("Attempted to set range=[" + minIndex + "," + maxIndex
+                    + "] out of range [0," + rangeCount + "] or with min > max");
+        }
+        this.minIndex = minIndex;
+        this.maxIndex = maxIndex;
+    }
+}
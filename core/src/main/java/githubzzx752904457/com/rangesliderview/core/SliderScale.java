@@ -0,0 +1,153 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+
+/**
+ * 按每个点的数值决定点在横线上的位置。
+ * <p>
+ * 数值先经过单调递增的变换,再按变换后的值在第一个点和最后一个点之间线性分布。
+ * 例如 100、10000、100000 用 {@link #LOG} 时,相邻两个数量级之间的距离相同。
+ */
+public abstract class SliderScale {
+
+    /** 位置和数值成正比 */
+    public static final SliderScale LINEAR = new SliderScale() {
+        @Override
+        protected double transform(double value) {
+            return value;
+        }
+    };
+
+    /** 位置和数值的对数成正比,数值必须 > 0 */
+    public static final SliderScale LOG = new SliderScale() {
+        @Override
+        protected double transform(double value) {
+            if (!(value > 0)) {
+                throw new IllegalArgumentException("log scale needs values > 0, got " + value);
+            }
+            return Math.log(value);
+        }
+
+        @Override
+        protected boolean inDomain(double value) {
+            return value > 0;
+        }
+    };
+
+    /**
+     * 分段线性的刻度:values[k] 变换为 fractions[k],中间的数值按所在的一段线性插值。
+     * 点的数值正好从 values[0] 到最后一个断点、fractions 从 0 到 1 时,values[k] 就画在整条线的 fractions[k] 处
+     *
+     * @param values    严格递增,至少 2 个
+     * @param fractions 和 values 一一对应,单调不减
+     */
+    public static SliderScale breakpoints(double[] values, double[] fractions) {
+        if (values.length < 2 || values.length != fractions.length) {
+            throw new IllegalArgumentException("need at least 2 breakpoints with one fraction each");
+        }
+        for (int k = 1; k < values.length; ++k) {
+            if (!(values[k] > values[k - 1])) {
+                throw new IllegalArgumentException("breakpoint values must be strictly increasing");
+            }
+            if (fractions[k] < fractions[k - 1]) {
+                throw new IllegalArgumentException("breakpoint fractions must not decrease");
+            }
+        }
+        return new Breakpoints(values.clone(), fractions.clone());
+    }
+
+    /**
+     * 单调递增的变换,位置按变换后的值线性分布
+     */
+    protected abstract double transform(double value);
+
+    /**
+     * value 能否变换,默认除 NaN 以外都可以
+     */
+    protected boolean inDomain(double value) {
+        return value == value;
+    }
+
+    /**
+     * values 能否用这个刻度排列:每个数值都能变换,单调不减,并且最后一个点比第一个点大。
+     * 不能时 {@link #layout} 会抛出异常,{@link SliderGeometry} 改为按下标等分
+     */
+    public boolean accepts(SliderValues values) {
+        int count = values.size();
+        double previous = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; ++i) {
+            double value = values.valueAt(i);
+            if (!inDomain(value)) {
+                return false;
+            }
+            double t = transform(value);
+            if (t < previous) {
+                return false;
+            }
+            previous = t;
+        }
+        return previous > transform(values.valueAt(0));
+    }
+
+    /**
+     * 把 values 中每个数值的位置写入 out,第一个点在 first,最后一个点在 last
+     *
+     * @param out 长度至少为 values.size()
+     */
+    public void layout(SliderValues values, float first, float last, float[] out) {
+        int count = values.size();
+        double t0 = transform(values.valueAt(0));
+        double t1 = transform(values.valueAt(count - 1));
+        if (!(t1 > t0)) {
+            throw new IllegalArgumentException("values must increase from the first slot to the last");
+        }
+        double scale = (last - first) / (t1 - t0);
+        double previous = t0;
+        out[0] = first;
+        for (int i = 1; i < count - 1; ++i) {
+            double t = transform(values.valueAt(i));
+            if (t < previous) {
+                throw new IllegalArgumentException("values must not decrease, index " + i);
+            }
+            previous = t;
+            out[i] = (float) (first + (t - t0) * scale);
+        }
+        if (t1 < previous) {
+            throw new IllegalArgumentException("values must not decrease, index " + (count - 1));
+        }
+        // 两端直接用给定的坐标,不受舍入影响
+        out[count - 1] = last;
+    }
+
+    private static final class Breakpoints extends SliderScale {
+        private final double[] values;
+        private final double[] fractions;
+
+        Breakpoints(double[] values, double[] fractions) {
+            this.values = values;
+            this.fractions = fractions;
+        }
+
+        @Override
+        protected double transform(double value) {
+            int last = values.length - 1;
+            if (value < values[0] || value > values[last]) {
+                throw new IllegalArgumentException("value " + value + " is outside ["
+                        + values[0] + ", " + values[last] + "]");
+            }
+            int k = Arrays.binarySearch(values, value);
+            if (k >= 0) {
+                return fractions[k];
+            }
+            // value 落在 values[k - 1] 和 values[k] 之间
+            k = -k - 1;
+            double t = (value - values[k - 1]) / (values[k] - values[k - 1]);
+            return fractions[k - 1] + (fractions[k] - fractions[k - 1]) * t;
+        }
+
+        @Override
+        protected boolean inDomain(double value) {
+            return value >= values[0] && value <= values[values.length - 1];
+        }
+    }
+}
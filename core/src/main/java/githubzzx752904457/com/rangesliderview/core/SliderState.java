@@ -0,0 +1,44 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 每个滑块各自的状态,只有选中的下标。
+ * <p>
+ * 列表复用滑块时为每一行保存一个,用 RangeSliderView#bind 绑定到复用的滑块上。
+ */
+public final class SliderState {
+
+    private int currentIndex;
+
+    private int minIndex;
+
+    private int maxIndex;
+
+    public SliderState() {
+    }
+
+    public SliderState(int currentIndex, int minIndex, int maxIndex) {
+        set(currentIndex, minIndex, maxIndex);
+    }
+
+    public void set(int currentIndex, int minIndex, int maxIndex) {
+        if (currentIndex < 0 || minIndex < 0 || minIndex > maxIndex) {
+            throw new IllegalArgumentException("Invalid state current=" + currentIndex
+                    + " range=[" + minIndex + "," + maxIndex + "]");
+        }
+        this.currentIndex = currentIndex;
+        this.minIndex = minIndex;
+        this.maxIndex = maxIndex;
+    }
+
+    public int getCurrentIndex() {
+        return currentIndex;
+    }
+
+    public int getMinIndex() {
+        return minIndex;
+    }
+
+    public int getMaxIndex() {
+        return maxIndex;
+    }
+}
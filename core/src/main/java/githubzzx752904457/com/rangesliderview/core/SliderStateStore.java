@@ -0,0 +1,262 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+
+/**
+ * 按稳定 id 保存多个滑块状态的表,用于一屏很多滑块或列表中滚出屏幕的行。
+ * <p>
+ * 开放寻址的哈希表,键是 long,值是每项三个 int(当前下标、区间的两端),全部存在基本类型数组里,
+ * 读写都不装箱。整张表可以序列化成一个紧凑的字节数组,放进一个 Bundle 里保存。
+ * 不是线程安全的,只在 UI 线程使用。
+ */
+public final class SliderStateStore {
+
+    private static final int FORMAT_VERSION = 1;
+
+    private static final float LOAD_FACTOR = 0.5f;
+
+    private long[] keys;
+
+    /** 每项 3 个 int:currentIndex, minIndex, maxIndex */
+    private int[] values;
+
+    private boolean[] used;
+
+    private int size;
+
+    private int mask;
+
+    public SliderStateStore() {
+        this(16);
+    }
+
+    public SliderStateStore(int expectedSize) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must be >= 0");
+        }
+        allocate(capacityFor(expectedSize));
+    }
+
+    private static int capacityFor(int size) {
+        int capacity = Integer.highestOneBit(Math.max(4, (int) (size / LOAD_FACTOR)));
+        return capacity < size / LOAD_FACTOR ? capacity << 1 : capacity;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new int[capacity * 3];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /**
+     * @return id 所在的槽,不存在时返回 -1
+     */
+    private int find(long id) {
+        for (int slot = hash(id) & mask; used[slot]; slot = (slot + 1) & mask) {
+            if (keys[slot] == id) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    public void put(long id, int currentIndex, int minIndex, int maxIndex) {
+        if (currentIndex < 0 || minIndex < 0 || minIndex > maxIndex) {
+            throw new IllegalArgumentException("Invalid state current=" + currentIndex
+                    + " range=[" + minIndex + "," + maxIndex + "]");
+        }
+        if (size + 1 > (mask + 1) * LOAD_FACTOR) {
+            rehash((mask + 1) << 1);
+        }
+        int slot = hash(id) & mask;
+        while (used[slot] && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        if (!used[slot]) {
+            used[slot] = true;
+            keys[slot] = id;
+            ++size;
+        }
+        values[slot * 3] = currentIndex;
+        values[slot * 3 + 1] = minIndex;
+        values[slot * 3 + 2] = maxIndex;
+    }
+
+    public void put(long id, SliderState state) {
+        put(id, state.getCurrentIndex(), state.getMinIndex(), state.getMaxIndex());
+    }
+
+    /**
+     * 把 id 的状态读到 out 中
+     *
+     * @return 是否存在
+     */
+    public boolean get(long id, SliderState out) {
+        int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+        out.set(values[slot * 3], values[slot * 3 + 1], values[slot * 3 + 2]);
+        return true;
+    }
+
+    public boolean contains(long id) {
+        return find(id) >= 0;
+    }
+
+    public int getCurrentIndex(long id, int defaultValue) {
+        int slot = find(id);
+        return slot < 0 ? defaultValue : values[slot * 3];
+    }
+
+    public int getMinIndex(long id, int defaultValue) {
+        int slot = find(id);
+        return slot < 0 ? defaultValue : values[slot * 3 + 1];
+    }
+
+    public int getMaxIndex(long id, int defaultValue) {
+        int slot = find(id);
+        return slot < 0 ? defaultValue : values[slot * 3 + 2];
+    }
+
+    public boolean remove(long id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+        // 把后面同一串里的项往前移,保证查找时不会提前遇到空槽
+        int hole = slot;
+        for (int next = (hole + 1) & mask; used[next]; next = (next + 1) & mask) {
+            int home = hash(keys[next]) & mask;
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                keys[hole] = keys[next];
+                System.arraycopy(values, next * 3, values, hole * 3, 3);
+                hole = next;
+            }
+        }
+        used[hole] = false;
+        --size;
+        return true;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        size = 0;
+        for (int i = 0; i < oldUsed.length; ++i) {
+            if (oldUsed[i]) {
+                put(oldKeys[i], oldValues[i * 3], oldValues[i * 3 + 1], oldValues[i * 3 + 2]);
+            }
+        }
+    }
+
+    /**
+     * 序列化整张表:版本号、项数,然后每项是 id 和三个下标,全部用变长整数编码
+     */
+    public byte[] toByteArray() {
+        // 每项最多 10 + 3 * 5 个字节
+        byte[] buffer = new byte[1 + 5 + size * 25];
+        int pos = 0;
+        buffer[pos++] = FORMAT_VERSION;
+        pos = writeVarLong(buffer, pos, size);
+        for (int slot = 0; slot < used.length; ++slot) {
+            if (used[slot]) {
+                // zigzag,负数 id 也只占几个字节
+                long id = keys[slot];
+                pos = writeVarLong(buffer, pos, (id << 1) ^ (id >> 63));
+                pos = writeVarLong(buffer, pos, values[slot * 3]);
+                pos = writeVarLong(buffer, pos, values[slot * 3 + 1]);
+                pos = writeVarLong(buffer, pos, values[slot * 3 + 2]);
+            }
+        }
+        return Arrays.copyOf(buffer, pos);
+    }
+
+    /**
+     * 读取 {@link #toByteArray()} 的结果,替换当前所有内容。
+     * 数据不完整或不合法时抛出 IllegalArgumentException,当前内容不变。
+     */
+    public void readFrom(byte[] data) {
+        if (data == null || data.length == 0 || data[0] != FORMAT_VERSION) {
+            throw new IllegalArgumentException("Unsupported slider state data");
+        }
+        int[] pos = {1};
+        long count = readVarLong(data, pos);
+        // 每项至少 4 个字节,项数不可信,先按剩余长度检查再分配
+        if (count < 0 || count > (data.length - pos[0]) / 4) {
+            throw new IllegalArgumentException("Invalid slider state count " + count);
+        }
+        int n = (int) count;
+        long[] ids = new long[n];
+        int[] states = new int[n * 3];
+        for (int i = 0; i < n; ++i) {
+            long zigzag = readVarLong(data, pos);
+            ids[i] = (zigzag >>> 1) ^ -(zigzag & 1);
+            int current = readIndex(data, pos);
+            int min = readIndex(data, pos);
+            int max = readIndex(data, pos);
+            if (min > max) {
+                throw new IllegalArgumentException("Invalid slider state range=[" + min + "," + max + "]");
+            }
+            states[i * 3] = current;
+            states[i * 3 + 1] = min;
+            states[i * 3 + 2] = max;
+        }
+        // 全部读完才替换
+        allocate(capacityFor(n));
+        size = 0;
+        for (int i = 0; i < n; ++i) {
+            put(ids[i], states[i * 3], states[i * 3 + 1], states[i * 3 + 2]);
+        }
+    }
+
+    private static int readIndex(byte[] data, int[] pos) {
+        long value = readVarLong(data, pos);
+        if (value < 0 || value > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Invalid slider state index " + value);
+        }
+        return (int) value;
+    }
+
+    private static int writeVarLong(byte[] buffer, int pos, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer[pos++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[pos++] = (byte) value;
+        return pos;
+    }
+
+    private static long readVarLong(byte[] data, int[] pos) {
+        long value = 0;
+        int shift = 0;
+        while (true) {
+            if (pos[0] >= data.length || shift > 63) {
+                throw new IllegalArgumentException("Truncated slider state data");
+            }
+            byte b = data[pos[0]++];
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+            shift += 7;
+        }
+    }
+}
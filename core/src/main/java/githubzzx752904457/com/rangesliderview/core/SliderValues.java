@@ -0,0 +1,116 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 下标到数值的映射,数值保存在 double 数组里。
+ * <p>
+ * 文字按需格式化,结果放在一个固定大小的直接映射缓存中:
+ * 来回拖过同样的点时命中缓存,不再分配内存;几十万个点也不会一次生成所有文字。
+ * 缓存项是不可变对象,可以在多个线程中同时读取。
+ */
+public final class SliderValues {
+
+    public interface Formatter {
+        String format(double value);
+    }
+
+    public static final int DEFAULT_CACHE_SIZE = 256;
+
+    private static final Formatter DEFAULT_FORMATTER = new Formatter() {
+        @Override
+        public String format(double value) {
+            return String.valueOf(value);
+        }
+    };
+
+    private static final class Entry {
+        final int index;
+        final String label;
+
+        Entry(int index, String label) {
+            this.index = index;
+            this.label = label;
+        }
+    }
+
+    private final double[] values;
+
+    private final Formatter formatter;
+
+    private final Entry[] cache;
+
+    private final int mask;
+
+    private SliderValues(double[] values, Formatter formatter, int cacheSize) {
+        if (values.length < 2) {
+            throw new IllegalArgumentException("values must contain at least 2 items");
+        }
+        if (cacheSize < 1 || cacheSize > (1 << 20)) {
+            throw new IllegalArgumentException("cache size must be in [1, 2^20]");
+        }
+        int size = Integer.highestOneBit(cacheSize);
+        if (size < cacheSize) {
+            size <<= 1;
+        }
+        this.values = values;
+        this.formatter = formatter != null ? formatter : DEFAULT_FORMATTER;
+        cache = new Entry[size];
+        mask = size - 1;
+    }
+
+    /**
+     * 复制给定的数值
+     */
+    public static SliderValues of(double[] values, Formatter formatter) {
+        return new SliderValues(values.clone(), formatter, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * start, start + step, ..., 共 count 个数值
+     */
+    public static SliderValues linear(double start, double step, int count, Formatter formatter) {
+        return linear(start, step, count, formatter, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * @param cacheSize 缓存的文字个数,会向上取整到 2 的幂
+     */
+    public static SliderValues linear(double start, double step, int count, Formatter formatter, int cacheSize) {
+        if (count < 2) {
+            throw new IllegalArgumentException("count must be >= 2");
+        }
+        double[] values = new double[count];
+        for (int i = 0; i < count; ++i) {
+            values[i] = start + i * step;
+        }
+        return new SliderValues(values, formatter, cacheSize);
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public double valueAt(int index) {
+        return values[index];
+    }
+
+    /**
+     * 第 index 个数值格式化后的文字,缓存命中时不分配内存
+     */
+    public String labelAt(int index) {
+        if (index < 0 || index >= values.length) {
+            throw new IllegalArgumentException("index must be in [0, " + (values.length - 1) + "]");
+        }
+        int slot = index & mask;
+        Entry entry = cache[slot];
+        if (entry != null && entry.index == index) {
+            return entry.label;
+        }
+        String label = formatter.format(values[index]);
+        cache[slot] = new Entry(index, label);
+        return label;
+    }
+
+    public int getCacheSize() {
+        return mask + 1;
+    }
+}
@@ -0,0 +1,168 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 根据横坐标查找最近的点。
+ * <p>
+ * 点等间距时直接用除法算出下标,否则在有序的坐标数组上二分查找,
+ * 结果与逐个比较距离的线性查找完全一致(距离相等时取下标较小的点)。
+ */
+public final class SlotSnapper {
+
+    private float[] positions;
+
+    private int count;
+
+    private boolean uniform;
+
+    private float origin;
+
+    private float spacing;
+
+    /**
+     * 每个点与等间距的位置相差不到四分之一个间距时也按等间距处理,
+     * 除法估算的下标最多偏一格,再在附近的点里按坐标比较,结果不受影响
+     *
+     * @param positions 每个点的横坐标,必须单调不减
+     * @param count     有效的点数, >= 1
+     */
+    public void setPositions(float[] positions, int count) {
+        checkCount(positions, count);
+        this.positions = positions;
+        this.count = count;
+        origin = positions[0];
+        spacing = count > 1 ? (positions[count - 1] - positions[0]) / (count - 1) : 0;
+        uniform = spacing > 0;
+        float tolerance = spacing / 4;
+        for (int i = 1; uniform && i < count; ++i) {
+            if (Math.abs(positions[i] - (origin + i * spacing)) > tolerance) {
+                uniform = false;
+            }
+        }
+    }
+
+    /**
+     * 调用方按 origin + i * spacing 算出的坐标,不用再逐个检查是否等间距
+     *
+     * @param spacing 相邻两个点的间距, <= 0 时所有点重叠,按二分查找
+     */
+    public void setUniformPositions(float[] positions, int count, float origin, float spacing) {
+        checkCount(positions, count);
+        this.positions = positions;
+        this.count = count;
+        this.origin = origin;
+        this.spacing = spacing;
+        uniform = spacing > 0 && count > 1;
+    }
+
+    private static void checkCount(float[] positions, int count) {
+        if (count < 1 || count > positions.length) {
+            throw new IllegalArgumentException("count must be in [1, " + positions.length + "]");
+        }
+    }
+
+    public boolean isUniform() {
+        return uniform;
+    }
+
+    public float first() {
+        return positions[0];
+    }
+
+    public float last() {
+        return positions[count - 1];
+    }
+
+    /**
+     * x 是否落在第一个点和最后一个点之间(含两端)
+     */
+    public boolean contains(float x) {
+        return x >= positions[0] && x <= positions[count - 1];
+    }
+
+    /**
+     * @return 离 x 最近的点的下标
+     */
+    public int nearestIndex(float x) {
+        if (uniform) {
+            int i = clamp((int) Math.floor((x - origin) / spacing));
+            // 浮点误差最多让估算偏差一格,在附近几个点里按原来的规则选
+            int from = Math.max(0, i - 1);
+            int to = Math.min(count - 1, i + 2);
+            int best = from;
+            float min = Math.abs(x - positions[from]);
+            for (int j = from + 1; j <= to; ++j) {
+                float dx = Math.abs(x - positions[j]);
+                if (dx < min) {
+                    min = dx;
+                    best = j;
+                }
+            }
+            return best;
+        }
+
+        int lo = countAtOrBefore(x) - 1;
+        int best;
+        if (lo < 0) {
+            best = 0;
+        } else if (lo + 1 < count
+                && Math.abs(x - positions[lo + 1]) < Math.abs(x - positions[lo])) {
+            best = lo + 1;
+        } else {
+            best = lo;
+        }
+        // 坐标重复时取最靠前的那个
+        return firstIndexOf(positions[best], best);
+    }
+
+    /**
+     * @return 坐标 <= x 的点的个数
+     */
+    public int countAtOrBefore(float x) {
+        if (uniform) {
+            int k = clamp((int) Math.floor((x - origin) / spacing)) + 1;
+            while (k < count && positions[k] <= x) {
+                ++k;
+            }
+            while (k > 0 && positions[k - 1] > x) {
+                --k;
+            }
+            return k;
+        }
+
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (positions[mid] <= x) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int firstIndexOf(float value, int upper) {
+        int low = 0;
+        int high = upper;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (positions[mid] < value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private int clamp(int index) {
+        if (index < 0) {
+            return 0;
+        }
+        if (index > count - 1) {
+            return count - 1;
+        }
+        return index;
+    }
+}
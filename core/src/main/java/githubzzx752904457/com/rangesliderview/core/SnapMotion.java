@@ -0,0 +1,84 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+/**
+ * 松手后滑块滑向目标点的运动,按匀减速计算,不依赖 Android。
+ * <p>
+ * 位置只由时间决定,每一帧调用 {@link #positionAt(long)} 即可,不分配内存;
+ * 起始速度与松手时的速度一致,到达目标时速度正好为 0。
+ */
+public final class SnapMotion {
+
+    private float from;
+
+    private float to;
+
+    private long startNanos;
+
+    private long durationNanos;
+
+    private boolean running;
+
+    /**
+     * 以 velocity 的速度松手后,按 deceleration 匀减速停下的位置
+     *
+     * @param velocity     像素/秒,可以为负
+     * @param deceleration 像素/秒², > 0
+     */
+    public static float predict(float x, float velocity, float deceleration) {
+        if (deceleration <= 0) {
+            throw new IllegalArgumentException("deceleration must be > 0");
+        }
+        return x + velocity * Math.abs(velocity) / (2 * deceleration);
+    }
+
+    /**
+     * 以 velocity 的初速度匀减速走完 distance 需要的时间,限制在 [minNanos, maxNanos] 内
+     */
+    public static long duration(float distance, float velocity, long minNanos, long maxNanos) {
+        float speed = Math.abs(velocity);
+        long nanos = speed > 0 ? (long) (2 * Math.abs(distance) / speed * 1e9) : maxNanos;
+        return Math.max(minNanos, Math.min(maxNanos, nanos));
+    }
+
+    public void start(float from, float to, long durationNanos, long startNanos) {
+        if (durationNanos <= 0) {
+            throw new IllegalArgumentException("duration must be > 0");
+        }
+        this.from = from;
+        this.to = to;
+        this.durationNanos = durationNanos;
+        this.startNanos = startNanos;
+        running = true;
+    }
+
+    /**
+     * @return now 时刻的位置,到时间后停在目标上并结束
+     */
+    public float positionAt(long nowNanos) {
+        if (!running) {
+            return to;
+        }
+        long elapsed = nowNanos - startNanos;
+        if (elapsed >= durationNanos) {
+            running = false;
+            return to;
+        }
+        if (elapsed <= 0) {
+            return from;
+        }
+        float t = 1f - (float) elapsed / durationNanos;
+        return to - (to - from) * t * t;
+    }
+
+    public void cancel() {
+        running = false;
+    }
+
+    public boolean isRunning() {
+        return running;
+    }
+
+    public float getTarget() {
+        return to;
+    }
+}
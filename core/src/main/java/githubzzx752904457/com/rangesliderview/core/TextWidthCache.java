@@ -0,0 +1,78 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.HashMap;
+
+/**
+ * 按文字缓存测量出的宽度,每个对象对应一种画笔配置(字号、字体)。
+ * <p>
+ * 同一段文字只测量一次,命中缓存时不分配内存;画笔的字号或字体变化后调用 {@link #clear()}。
+ * 只在 UI 线程使用,不做同步。
+ */
+public final class TextWidthCache {
+
+    /** 用画笔测量文字宽度,例如 android.graphics.Paint#measureText */
+    public interface Measurer {
+        float measureText(String text);
+    }
+
+    public static final int DEFAULT_MAX_SIZE = 512;
+
+    private final Measurer measurer;
+
+    private final int maxSize;
+
+    private final HashMap<String, Float> widths = new HashMap<String, Float>();
+
+    private int generation;
+
+    private int measureCount;
+
+    public TextWidthCache(Measurer measurer) {
+        this(measurer, DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * @param maxSize 缓存的文字个数,超过后清空重来
+     */
+    public TextWidthCache(Measurer measurer, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be >= 1");
+        }
+        this.measurer = measurer;
+        this.maxSize = maxSize;
+    }
+
+    public float widthOf(String text) {
+        Float width = widths.get(text);
+        if (width != null) {
+            return width;
+        }
+        float measured = measurer.measureText(text);
+        ++measureCount;
+        if (widths.size() >= maxSize) {
+            widths.clear();
+        }
+        widths.put(text, measured);
+        return measured;
+    }
+
+    /**
+     * 画笔的配置变了,之前的宽度都作废
+     */
+    public void clear() {
+        widths.clear();
+        ++generation;
+    }
+
+    /**
+     * 每次 {@link #clear()} 后加一,用来判断依赖宽度的排版是否过期
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /** 实际调用 Measurer 的次数 */
+    public int getMeasureCount() {
+        return measureCount;
+    }
+}
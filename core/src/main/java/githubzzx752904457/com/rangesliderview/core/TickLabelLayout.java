@@ -0,0 +1,204 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import java.util.Arrays;
+
+/**
+ * 每个点下方的刻度文字:决定哪些点画文字、画在哪里。
+ * <p>
+ * 文字以点为中心,超出 [minX, maxX] 时向内移。从左到右依次摆放,和前一个文字的间距小于 gap 的不画;
+ * 最后一个点的文字总是保留,和它重叠的前一个让位。点落在前一个文字的范围内时不用测量就能跳过,
+ * 几十万个点时也只测量最终画出来的那些附近的文字。
+ * <p>
+ * 排版结果缓存到几何信息、数值、间距或文字宽度变化为止,每一帧绘制只按可见范围二分查找,不分配内存。
+ */
+public final class TickLabelLayout {
+
+    private int count;
+
+    private int[] indices = new int[0];
+
+    private String[] texts = new String[0];
+
+    private float[] lefts = new float[0];
+
+    private float[] rights = new float[0];
+
+    private boolean valid;
+
+    private int lastVersion;
+
+    private SliderValues lastValues;
+
+    private TextWidthCache lastWidths;
+
+    private int lastGeneration;
+
+    private float lastGap;
+
+    private float lastMinX;
+
+    private float lastMaxX;
+
+    /**
+     * 输入都没变时直接返回上次的结果
+     *
+     * @param values 每个点的文字,为 null 或个数和点数不一致时不画文字
+     * @return 要画的文字个数
+     */
+    public int layout(SliderGeometry geometry, SliderValues values, TextWidthCache widths,
+                      float gap, float minX, float maxX) {
+        if (valid && lastVersion == geometry.getVersion() && lastValues == values
+                && lastWidths == widths && lastGeneration == widths.getGeneration()
+                && lastGap == gap && lastMinX == minX && lastMaxX == maxX) {
+            return count;
+        }
+        valid = true;
+        lastVersion = geometry.getVersion();
+        lastValues = values;
+        lastWidths = widths;
+        lastGeneration = widths.getGeneration();
+        lastGap = gap;
+        lastMinX = minX;
+        lastMaxX = maxX;
+
+        count = 0;
+        int n = geometry.getRangeCount();
+        if (values == null || values.size() != n || n < 1 || maxX <= minX) {
+            return 0;
+        }
+        float[] positions = geometry.getSlotPositions();
+
+        String lastText = values.labelAt(n - 1);
+        float lastWidth = widths.widthOf(lastText);
+        float lastLeft = clampLeft(positions[n - 1], lastWidth, minX, maxX);
+
+        float limit = Float.NEGATIVE_INFINITY;
+        int i = 0;
+        while (i < n - 1) {
+            float x = positions[i];
+            if (x < limit) {
+                /** 文字以点为中心,左边不会超过点,一定和前一个重叠 */
+                i = firstLeftAtOrAfter(positions, i + 1, n - 1, 0, limit);
+                continue;
+            }
+            String text = values.labelAt(i);
+            float width = widths.widthOf(text);
+            float left = clampLeft(x, width, minX, maxX);
+            float right = left + width;
+            if (right + gap > lastLeft) {
+                // 后面的点更靠右,都会和最后一个文字重叠
+                break;
+            }
+            if (left >= limit) {
+                add(i, text, left, right);
+                limit = right + gap;
+                ++i;
+            } else {
+                // 假设后面的文字和这个一样宽,跳到左边界不小于 limit 的点
+                int next = firstLeftAtOrAfter(positions, i + 1, n - 1, width / 2, limit);
+                // 前面更窄的文字也可能放得下,按实际的左边界往回检查
+                while (next - 1 > i && clampLeft(positions[next - 1],
+                        widths.widthOf(values.labelAt(next - 1)), minX, maxX) >= limit) {
+                    --next;
+                }
+                i = next;
+            }
+        }
+        add(n - 1, lastText, lastLeft, lastLeft + lastWidth);
+        return count;
+    }
+
+    private static float clampLeft(float x, float width, float minX, float maxX) {
+        float left = x - width / 2;
+        if (left + width > maxX) {
+            left = maxX - width;
+        }
+        return Math.max(left, minX);
+    }
+
+    /**
+     * positions[from, to) 中第一个 positions[i] - halfWidth 不小于 limit 的下标,都小于 limit 时返回 to。
+     * 和 {@link #clampLeft} 用同样的算式比较左边界,刚好放得下的文字不会因为舍入被跳过
+     */
+    private static int firstLeftAtOrAfter(float[] positions, int from, int to, float halfWidth, float limit) {
+        int lo = from;
+        int hi = to;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (positions[mid] - halfWidth < limit) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private void add(int index, String text, float left, float right) {
+        if (count == indices.length) {
+            int size = Math.max(8, count * 2);
+            indices = Arrays.copyOf(indices, size);
+            texts = Arrays.copyOf(texts, size);
+            lefts = Arrays.copyOf(lefts, size);
+            rights = Arrays.copyOf(rights, size);
+        }
+        indices[count] = index;
+        texts[count] = text;
+        lefts[count] = left;
+        rights[count] = right;
+        ++count;
+    }
+
+    /**
+     * 几何信息、数值或画笔以外的原因需要重新排版时调用
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    /** 第 i 个要画的文字对应的点的下标 */
+    public int getIndex(int i) {
+        return indices[i];
+    }
+
+    public String getText(int i) {
+        return texts[i];
+    }
+
+    public float getLeft(int i) {
+        return lefts[i];
+    }
+
+    public float getRight(int i) {
+        return rights[i];
+    }
+
+    /**
+     * 只画和 [clipLeft, clipRight) 相交的文字,文字的左右边界都是递增的,二分找到第一个
+     *
+     * @param baseline 文字的基线
+     * @return 绘制调用的次数
+     */
+    public int draw(SliderCanvas canvas, float baseline, int color, float clipLeft, float clipRight) {
+        int lo = 0;
+        int hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (rights[mid] <= clipLeft) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        int ops = 0;
+        for (int i = lo; i < count && lefts[i] < clipRight; ++i) {
+            canvas.drawText(texts[i], (lefts[i] + rights[i]) / 2, baseline, color);
+            ++ops;
+        }
+        return ops;
+    }
+}
@@ -0,0 +1,145 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConflatingDispatcherTest {
+
+    /** 手动执行的 Executor,用来控制任务什么时候运行 */
+    private static final class QueueExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            while (!tasks.isEmpty()) {
+                tasks.remove(0).run();
+            }
+        }
+    }
+
+    private static final class Recorder implements ConflatingDispatcher.Callback<Integer> {
+        final List<Integer> slides = new ArrayList<Integer>();
+        final List<Integer> results = new ArrayList<Integer>();
+
+        @Override
+        public synchronized Integer onSlide(int index) {
+            slides.add(index);
+            return index * 10;
+        }
+
+        @Override
+        public synchronized void onResult(int index, Integer result) {
+            assertEquals(index * 10, result.intValue());
+            results.add(index);
+        }
+    }
+
+    @Test
+    public void conflatesToLatestWhenWorkerIsBusy() {
+        QueueExecutor worker = new QueueExecutor();
+        QueueExecutor ui = new QueueExecutor();
+        Recorder recorder = new Recorder();
+        ConflatingDispatcher<Integer> dispatcher = new ConflatingDispatcher<Integer>(worker, ui, recorder);
+
+        dispatcher.dispatch(1);
+        dispatcher.dispatch(2);
+        dispatcher.dispatch(3);
+        // 邮箱只有一个槽,只安排了一次后台任务
+        assertEquals(1, worker.tasks.size());
+
+        worker.runAll();
+        ui.runAll();
+        assertEquals(Integer.valueOf(3), recorder.slides.get(0));
+        assertEquals(1, recorder.slides.size());
+        assertEquals(1, recorder.results.size());
+        assertEquals(Integer.valueOf(3), recorder.results.get(0));
+    }
+
+    @Test
+    public void dropsResultsOvertakenByNewerSlides() {
+        QueueExecutor worker = new QueueExecutor();
+        QueueExecutor ui = new QueueExecutor();
+        Recorder recorder = new Recorder();
+        ConflatingDispatcher<Integer> dispatcher = new ConflatingDispatcher<Integer>(worker, ui, recorder);
+
+        dispatcher.dispatch(1);
+        worker.runAll();
+        dispatcher.dispatch(2);
+        // 1 的结果还没送到 UI 线程,2 已经提交,1 的结果过期
+        ui.runAll();
+        assertTrue(recorder.results.isEmpty());
+
+        worker.runAll();
+        ui.runAll();
+        assertEquals(2, recorder.slides.size());
+        assertEquals(1, recorder.results.size());
+        assertEquals(Integer.valueOf(2), recorder.results.get(0));
+    }
+
+    @Test
+    public void deliversFinalValueInOrderWithoutOverlap() throws InterruptedException {
+        ExecutorService worker = Executors.newFixedThreadPool(4);
+        final QueueExecutor ui = new QueueExecutor();
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final List<Integer> slides = new ArrayList<Integer>();
+        final CountDownLatch last = new CountDownLatch(1);
+        final int total = 20000;
+        ConflatingDispatcher<Integer> dispatcher = new ConflatingDispatcher<Integer>(worker,
+                new Executor() {
+                    @Override
+                    public void execute(Runnable command) {
+                        synchronized (ui) {
+                            ui.execute(command);
+                        }
+                    }
+                },
+                new ConflatingDispatcher.Callback<Integer>() {
+                    @Override
+                    public Integer onSlide(int index) {
+                        int now = running.incrementAndGet();
+                        if (now > maxRunning.get()) {
+                            maxRunning.set(now);
+                        }
+                        slides.add(index);
+                        running.decrementAndGet();
+                        if (index == total - 1) {
+                            last.countDown();
+                        }
+                        return index;
+                    }
+
+                    @Override
+                    public void onResult(int index, Integer result) {
+                    }
+                });
+
+        for (int i = 0; i < total; ++i) {
+            dispatcher.dispatch(i);
+        }
+        assertTrue(last.await(10, TimeUnit.SECONDS));
+        worker.shutdown();
+        assertTrue(worker.awaitTermination(10, TimeUnit.SECONDS));
+
+        assertEquals(1, maxRunning.get());
+        assertEquals(Integer.valueOf(total - 1), slides.get(slides.size() - 1));
+        for (int i = 1; i < slides.size(); ++i) {
+            assertTrue(slides.get(i) > slides.get(i - 1));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class HistogramBinnerTest {
+
+    private static int[] naive(double[] data, int size, double[] edges) {
+        int[] counts = new int[edges.length - 1];
+        for (int i = 0; i < size; ++i) {
+            double v = data[i];
+            for (int c = counts.length - 1; c >= 0; --c) {
+                if (v >= edges[c] && v <= edges[edges.length - 1]) {
+                    ++counts[c];
+                    break;
+                }
+            }
+        }
+        return counts;
+    }
+
+    private static double[] edges(int columns, double max) {
+        double[] edges = new double[columns + 1];
+        for (int c = 0; c <= columns; ++c) {
+            edges[c] = max * c / columns;
+        }
+        return edges;
+    }
+
+    @Test
+    public void countsBoundariesIntoTheRightColumns() {
+        HistogramBinner binner = new HistogramBinner(null, 4);
+        binner.setData(new double[]{0, 0.5, 1, 2.99, 3, -1, 4, Double.NaN}, 8);
+        // 左边界算在本列,最后一个边界算在最后一列,超出范围和 NaN 不计
+        assertArrayEquals(new int[]{2, 1, 2}, binner.bin(edges(3, 3)));
+    }
+
+    @Test
+    public void parallelChunksMatchSerialCount() {
+        Random random = new Random(7);
+        double[] data = new double[200000];
+        for (int i = 0; i < data.length; ++i) {
+            data[i] = random.nextGaussian() * 20 + 50;
+        }
+        double[] edges = edges(300, 100);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            HistogramBinner binner = new HistogramBinner(pool, 1000);
+            binner.setData(data, data.length);
+            assertArrayEquals(naive(data, data.length, edges), binner.bin(edges));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void appendsIncrementallyAndRebinsOnNewEdges() {
+        Random random = new Random(11);
+        double[] all = new double[5000];
+        for (int i = 0; i < all.length; ++i) {
+            all[i] = random.nextDouble() * 10;
+        }
+        HistogramBinner binner = new HistogramBinner(null, 64);
+        double[] edges = edges(37, 10);
+        binner.append(all, 0, 1000);
+        assertArrayEquals(naive(all, 1000, edges), binner.bin(edges));
+        binner.append(all, 1000, 4000);
+        assertEquals(5000, binner.size());
+        assertArrayEquals(naive(all, 5000, edges), binner.bin(edges.clone()));
+
+        double[] wider = edges(80, 10);
+        assertArrayEquals(naive(all, 5000, wider), binner.bin(wider));
+
+        binner.setData(new double[]{1, 2}, 1);
+        assertArrayEquals(naive(new double[]{1}, 1, wider), binner.bin(wider));
+        binner.clear();
+        assertEquals(0, HistogramBinner.max(binner.bin(wider)));
+    }
+
+    @Test
+    public void geometryMapsPixelColumnsToValues() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        // 5 个点,从 40 到 360,每个点间隔 80 像素
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        double[] edges = geometry.columnEdges();
+        assertEquals(321, edges.length);
+        assertEquals(0, edges[0], 0);
+        assertEquals(0.5, edges[40], 1e-6);
+        assertEquals(4, edges[320], 0);
+
+        SliderValues amounts = SliderValues.of(new double[]{100, 10000, 30000, 50000, 100000}, null);
+        geometry.setScale(SliderScale.LOG, amounts);
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        double[] linear = edges;
+        edges = geometry.columnEdges();
+        // 列数没变时复用同一个数组
+        assertSame(linear, edges);
+        assertEquals(100, edges[0], 0);
+        assertEquals(100000, edges[edges.length - 1], 0);
+        assertEquals(10000, geometry.valueAtX(geometry.getSlotX(1)), 1e-6);
+
+        // 还没有宽度时没有列
+        geometry.update(model, 0, 100, 0, 0, 0, 0);
+        assertNull(geometry.columnEdges());
+    }
+
+    @Test
+    public void appendNeverWritesIntoTheCallersArray() {
+        HistogramBinner binner = new HistogramBinner(null, 4);
+        // 有效的只有前 2 个,后面还有空位
+        double[] values = {1, 2, 7, 7};
+        binner.setData(values, 2);
+        binner.append(new double[]{3, 3}, 0, 2);
+        assertArrayEquals(new double[]{1, 2, 7, 7}, values, 0);
+        assertEquals(4, binner.size());
+        assertArrayEquals(new int[]{0, 1, 1, 2}, binner.bin(edges(4, 4)));
+    }
+}
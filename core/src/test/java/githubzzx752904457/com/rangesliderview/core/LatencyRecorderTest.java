@@ -0,0 +1,71 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LatencyRecorderTest {
+
+    @Test
+    public void capacityRoundsUpToPowerOfTwo() {
+        assertEquals(128, new LatencyRecorder(100).capacity());
+        assertEquals(1, new LatencyRecorder(1).capacity());
+    }
+
+    @Test
+    public void percentilesUseNearestRank() {
+        LatencyRecorder recorder = new LatencyRecorder(128);
+        for (int i = 1; i <= 100; ++i) {
+            recorder.record(i);
+        }
+        LatencyStats stats = recorder.stats();
+        assertEquals(100, stats.count);
+        assertEquals(100, stats.windowSize);
+        assertEquals(50, stats.p50);
+        assertEquals(95, stats.p95);
+        assertEquals(99, stats.p99);
+        assertEquals(100, stats.max);
+    }
+
+    @Test
+    public void keepsOnlyTheLatestWindow() {
+        LatencyRecorder recorder = new LatencyRecorder(4);
+        for (int i = 1; i <= 10; ++i) {
+            recorder.record(i * 10);
+        }
+        LatencyStats stats = recorder.stats();
+        assertEquals(10, stats.count);
+        assertEquals(4, stats.windowSize);
+        assertEquals(80, stats.p50);
+        assertEquals(100, stats.max);
+    }
+
+    @Test
+    public void concurrentWritersDoNotLoseCount() throws InterruptedException {
+        final LatencyRecorder recorder = new LatencyRecorder(64);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; ++i) {
+                        recorder.record(1);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(40000, recorder.getCount());
+        assertEquals(1, recorder.stats().p99);
+    }
+
+    @Test
+    public void emptyRecorderReportsZero() {
+        LatencyStats stats = new LatencyRecorder(8).stats();
+        assertEquals(0, stats.windowSize);
+        assertEquals(0, stats.p99);
+    }
+}
@@ -0,0 +1,145 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class QuantileSketchTest {
+
+    @Test
+    public void estimatesRanksWithinErrorBound() {
+        Random random = new Random(5);
+        int n = 300000;
+        double[] data = new double[n];
+        for (int i = 0; i < n; ++i) {
+            data[i] = Math.exp(random.nextGaussian());
+        }
+        QuantileSketch sketch = new QuantileSketch(200, 1);
+        sketch.addAll(data, 0, n);
+        double[] sorted = data.clone();
+        Arrays.sort(sorted);
+
+        assertEquals(n, sketch.count());
+        assertTrue("retained=" + sketch.retained(), sketch.retained() < 200 * 20);
+        assertEquals(sorted[0], sketch.quantile(0), 0);
+        assertEquals(sorted[n - 1], sketch.quantile(1), 0);
+        for (int p = 1; p < 100; ++p) {
+            double estimate = sketch.quantile(p / 100.0);
+            int rank = Arrays.binarySearch(sorted, estimate);
+            assertTrue(rank >= 0);
+            // 名次误差不超过 2%
+            assertEquals("p=" + p, p / 100.0, (double) rank / n, 0.02);
+        }
+    }
+
+    @Test
+    public void smallInputsAreExact() {
+        QuantileSketch sketch = new QuantileSketch(8, 0);
+        assertTrue(Double.isNaN(sketch.quantile(0.5)));
+        sketch.addAll(new double[]{5, 1, Double.NaN, 3, 2, 4}, 0, 6);
+        assertEquals(5, sketch.count());
+        double[] out = new double[3];
+        sketch.quantiles(new double[]{0, 0.5, 1}, out);
+        assertEquals(1, out[0], 0);
+        assertEquals(3, out[1], 0);
+        assertEquals(5, out[2], 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnsortedFractions() {
+        new QuantileSketch().quantiles(new double[]{0.5, 0.1}, new double[2]);
+    }
+
+    @Test
+    public void slotsPublishOnlyWhenBoundariesChange() {
+        QuantileSlots slots = new QuantileSlots(5, null, new QuantileSketch(8, 0));
+        final AtomicInteger changes = new AtomicInteger();
+        slots.setListener(new QuantileSlots.Listener() {
+            @Override
+            public void onSlotsChanged(QuantileSlots slots) {
+                changes.incrementAndGet();
+            }
+        });
+        assertNull(slots.latest());
+        slots.addAll(new double[]{0, 10, 20, 30, 40}, 0, 5);
+        SliderValues first = slots.latest();
+        assertNotNull(first);
+        assertEquals(1, changes.get());
+        assertEquals(0, first.valueAt(0), 0);
+        assertEquals(20, first.valueAt(2), 0);
+        assertEquals(40, first.valueAt(4), 0);
+
+        // 分位数没有变化时不发布
+        slots.addAll(new double[]{20}, 0, 1);
+        assertSame(first, slots.latest());
+        assertEquals(1, changes.get());
+
+        slots.addAll(new double[]{100, 100, 100}, 0, 3);
+        assertEquals(100, slots.latest().valueAt(4), 0);
+        assertEquals(2, changes.get());
+    }
+
+    @Test
+    public void scaledGeometryFallsBackToUniformUntilQuantilesSpread() {
+        QuantileSlots slots = new QuantileSlots(5, null, new QuantileSketch(8, 0));
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        // 只有一个数据时所有分位数都相同,不能按数值排列
+        slots.addAll(new double[]{42}, 0, 1);
+        geometry.setScale(SliderScale.LINEAR, slots.latest());
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        assertEquals(200, geometry.getSlotX(2), 0);
+
+        // 非正数不在对数刻度的定义域内
+        slots.addAll(new double[]{-1, 0, 10}, 0, 3);
+        geometry.setScale(SliderScale.LOG, slots.latest());
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        assertEquals(120, geometry.getSlotX(1), 0);
+
+        geometry.setScale(SliderScale.LINEAR, slots.latest());
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        // -1, 0, 10, 42, 42:第三个点在 (10 + 1) / 43 处
+        assertEquals(40 + 320f * 11 / 43, geometry.getSlotX(2), 1e-3f);
+    }
+
+    @Test
+    public void concurrentAppendsPublishEveryValue() throws InterruptedException {
+        final QuantileSlots slots = new QuantileSlots(11, null);
+        final int threads = 4;
+        final int perThread = 50000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; ++t) {
+            final int seed = t;
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    double[] batch = new double[1000];
+                    for (int b = 0; b < perThread / batch.length; ++b) {
+                        for (int i = 0; i < batch.length; ++i) {
+                            batch[i] = random.nextDouble() * 1000;
+                        }
+                        slots.addAll(batch, 0, batch.length);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        assertEquals(threads * perThread, slots.count());
+        SliderValues values = slots.latest();
+        for (int i = 1; i < values.size(); ++i) {
+            assertTrue(values.valueAt(i) >= values.valueAt(i - 1));
+        }
+        assertEquals(500, values.valueAt(5), 20);
+    }
+}
@@ -0,0 +1,75 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 整帧的录制和保存的结果比较在 app 的 GoldenFrameTest 中,用的是 RangeSliderView#drawFrame 本身
+ */
+public class RecordingCanvasTest {
+
+    private static final int FILLED = 0xFFFFA500;
+
+    private static final int EMPTY = 0xFFC3C3C3;
+
+    private static final float STROKE = 5;
+
+    private static final int WIDTH = 400;
+
+    private static final int HEIGHT = 60;
+
+    private final RecordingCanvas canvas = new RecordingCanvas();
+
+    private static RenderPlan plan(SliderGeometry geometry, int index) {
+        SliderModel model = new SliderModel();
+        geometry.update(model, WIDTH, HEIGHT, 0, 0, 0, 0);
+        RenderPlan plan = new RenderPlan();
+        plan.compile(geometry, geometry.getSlotX(index), FILLED, EMPTY, STROKE);
+        return plan;
+    }
+
+    @Test
+    public void measuresOverdraw() {
+        canvas.reset();
+        canvas.drawRect(0, 0, 10, 10, FILLED);
+        assertEquals(0, canvas.overdraw(20, 20));
+        canvas.drawRect(5, 0, 15, 10, EMPTY);
+        assertEquals(50, canvas.overdraw(20, 20));
+
+        // 同一帧重复画一次,每个被覆盖的像素都多画一次
+        SliderGeometry geometry = new SliderGeometry();
+        RenderPlan plan = plan(geometry, 2);
+        canvas.reset();
+        plan.draw(canvas);
+        long once = canvas.overdraw(WIDTH, HEIGHT);
+        plan.draw(canvas);
+        long twice = canvas.overdraw(WIDTH, HEIGHT);
+        assertTrue(twice > once);
+
+        // 选中和未选中的横线不重叠,重复绘制只来自圆点
+        assertTrue(once > 0);
+        canvas.reset();
+        for (int op = 0; op < plan.getOpCount(); ++op) {
+            if (plan.getOpType(op) == RenderPlan.OP_RECT) {
+                canvas.drawRect(plan.getOpArg(op, 0), plan.getOpArg(op, 1),
+                        plan.getOpArg(op, 2), plan.getOpArg(op, 3), plan.getOpColor(op));
+            }
+        }
+        assertEquals(0, canvas.overdraw(WIDTH, HEIGHT));
+    }
+
+    @Test
+    public void recordsTextByReference() {
+        canvas.reset();
+        String label = "100";
+        canvas.drawText(label, 40, 55, EMPTY);
+        assertEquals(1, canvas.getTextCount());
+        assertTrue(label == canvas.getText(0));
+        assertEquals(0, canvas.overdraw(WIDTH, HEIGHT));
+        assertEquals("text ffc3c3c3 40.00 55.00 100\n", canvas.toCommands());
+        canvas.reset();
+        assertEquals(0, canvas.getTextCount());
+    }
+}
@@ -0,0 +1,428 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * 用一个不做抗锯齿的光栅化器,对比 {@link RenderPlan} 和原来逐个画圆、画两条横线的像素结果
+ */
+public class RenderPlanTest {
+
+    private static final int FILLED = 0xFFF34F04;
+
+    private static final int EMPTY = 0xFF888888;
+
+    private static final float STROKE = 5;
+
+    /** 只比较颜色,像素中心落在图形内即算覆盖 */
+    private static final class Raster {
+        final int width;
+        final int height;
+        final int[] pixels;
+
+        Raster(int width, int height) {
+            this.width = width;
+            this.height = height;
+            pixels = new int[width * height];
+        }
+
+        void disk(float cx, float cy, float r, int color) {
+            for (int j = 0; j < height; ++j) {
+                for (int i = 0; i < width; ++i) {
+                    float dx = i + 0.5f - cx;
+                    float dy = j + 0.5f - cy;
+                    if (dx * dx + dy * dy <= r * r) {
+                        pixels[j * width + i] = color;
+                    }
+                }
+            }
+        }
+
+        void rect(float l, float t, float r, float b, int color) {
+            for (int j = 0; j < height; ++j) {
+                for (int i = 0; i < width; ++i) {
+                    float x = i + 0.5f;
+                    float y = j + 0.5f;
+                    if (x >= l && x < r && y >= t && y < b) {
+                        pixels[j * width + i] = color;
+                    }
+                }
+            }
+        }
+    }
+
+    /** 原来的画法:描边画笔让圆和矩形都向外扩展半个线宽 */
+    private static Raster legacy(SliderGeometry g, int width, int height, float fillX) {
+        Raster raster = new Raster(width, height);
+        float half = STROKE / 2;
+        float r = g.getSlotRadius() + half;
+        int y = g.getCenterY();
+        int barHalf = g.getBarHeight() >> 1;
+        for (int i = 0; i < g.getRangeCount(); ++i) {
+            raster.disk(g.getSlotX(i), y, r, EMPTY);
+        }
+        raster.rect((int) g.getFirstSlotX() - half, y - barHalf - half,
+                (int) (g.getLastSlotX() + g.getSlotRadius() * 4) + half, y + barHalf + half, EMPTY);
+        for (int i = 0; i < g.getRangeCount(); ++i) {
+            if (g.getSlotX(i) <= fillX) {
+                raster.disk(g.getSlotX(i), y, r, FILLED);
+            }
+        }
+        raster.rect((int) (g.getFirstSlotX() - g.getSlotRadius() * 4) - half, y - barHalf - half,
+                (int) fillX + half, y + barHalf + half, FILLED);
+        return raster;
+    }
+
+    /** 区间模式:整条横线画成没选中,再把两个滑块之间画成选中 */
+    private static Raster legacyRange(SliderGeometry g, int width, int height, float fromX, float toX) {
+        Raster raster = new Raster(width, height);
+        float half = STROKE / 2;
+        float r = g.getSlotRadius() + half;
+        int y = g.getCenterY();
+        int barHalf = g.getBarHeight() >> 1;
+        for (int i = 0; i < g.getRangeCount(); ++i) {
+            raster.disk(g.getSlotX(i), y, r, EMPTY);
+        }
+        raster.rect((int) g.getFirstSlotX() - half, y - barHalf - half,
+                (int) (g.getLastSlotX() + g.getSlotRadius() * 4) + half, y + barHalf + half, EMPTY);
+        for (int i = 0; i < g.getRangeCount(); ++i) {
+            if (g.getSlotX(i) >= fromX && g.getSlotX(i) <= toX) {
+                raster.disk(g.getSlotX(i), y, r, FILLED);
+            }
+        }
+        raster.rect((int) fromX - half, y - barHalf - half, (int) toX + half, y + barHalf + half, FILLED);
+        return raster;
+    }
+
+    private static Raster planned(RenderPlan plan, int width, int height) {
+        Raster raster = new Raster(width, height);
+        float[] points = plan.getPoints();
+        for (int op = 0; op < plan.getOpCount(); ++op) {
+            int color = plan.getOpColor(op);
+            if (plan.getOpType(op) == RenderPlan.OP_RECT) {
+                raster.rect(plan.getOpArg(op, 0), plan.getOpArg(op, 1),
+                        plan.getOpArg(op, 2), plan.getOpArg(op, 3), color);
+            } else if (plan.getOpType(op) == RenderPlan.OP_LINE) {
+                float r = plan.getPointSize() / 2;
+                float x0 = plan.getOpArg(op, 0);
+                float x1 = plan.getOpArg(op, 2);
+                float y = plan.getOpArg(op, 1);
+                raster.disk(x0, y, r, color);
+                raster.disk(x1, y, r, color);
+                raster.rect(x0, y - r, x1, y + r, color);
+            } else {
+                int offset = (int) plan.getOpArg(op, 0);
+                int count = (int) plan.getOpArg(op, 1);
+                for (int i = offset; i < offset + count; i += 2) {
+                    raster.disk(points[i], points[i + 1], plan.getPointSize() / 2, color);
+                }
+            }
+        }
+        return raster;
+    }
+
+    private static void assertSamePixels(String message, Raster expected, Raster actual) {
+        for (int i = 0; i < expected.pixels.length; ++i) {
+            if (expected.pixels[i] != actual.pixels[i]) {
+                fail(message + " differs at (" + (i % expected.width) + ", " + (i / expected.width) + ")");
+            }
+        }
+    }
+
+    /**
+     * 横线之间没有共同的像素,每个圆点最多画一次,也不画被同色横线完全盖住的圆点或线段
+     */
+    private static void assertDisjoint(String message, RenderPlan plan, int width, int height) {
+        int[] coverage = new int[width * height];
+        int[] drawn = new int[plan.getMarkCount()];
+        float r = plan.getPointSize() / 2;
+        for (int op = 0; op < plan.getOpCount(); ++op) {
+            if (plan.getOpType(op) == RenderPlan.OP_RECT) {
+                for (int j = 0; j < height; ++j) {
+                    for (int i = 0; i < width; ++i) {
+                        float x = i + 0.5f;
+                        float y = j + 0.5f;
+                        if (x >= plan.getOpArg(op, 0) && x < plan.getOpArg(op, 2)
+                                && y >= plan.getOpArg(op, 1) && y < plan.getOpArg(op, 3)
+                                && ++coverage[j * width + i] > 1) {
+                            fail(message + " overlapping bars at (" + i + ", " + j + ")");
+                        }
+                    }
+                }
+                continue;
+            }
+            float x0;
+            float x1;
+            if (plan.getOpType(op) == RenderPlan.OP_POINTS) {
+                int offset = (int) plan.getOpArg(op, 0);
+                int count = (int) plan.getOpArg(op, 1);
+                for (int i = offset; i < offset + count; i += 2) {
+                    assertEquals(message + " point " + i / 2, 1, ++drawn[i / 2]);
+                }
+                x0 = plan.getPoints()[offset];
+                x1 = plan.getPoints()[offset + count - 2];
+            } else {
+                x0 = plan.getOpArg(op, 0);
+                x1 = plan.getOpArg(op, 2);
+            }
+            for (int bar = 0; bar < plan.getOpCount(); ++bar) {
+                if (plan.getOpType(bar) == RenderPlan.OP_RECT && plan.getOpColor(bar) == plan.getOpColor(op)
+                        && plan.getOpArg(bar, 3) - plan.getOpArg(bar, 1) > r * 2) {
+                    // 两端的圆点伸出横线才需要画
+                    assertTrue(message + " covered op " + op, x0 - r <= plan.getOpArg(bar, 0)
+                            || x1 + r >= plan.getOpArg(bar, 2) || x1 + r <= plan.getOpArg(bar, 0)
+                            || x0 - r >= plan.getOpArg(bar, 2));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void matchesLegacyRendering() {
+        Random random = new Random(1);
+        int[][] configs = {
+                // width, height, rangeCount, padding
+                {400, 60, 2, 0},
+                {400, 60, 5, 10},
+                {720, 80, 5, 24},
+                {360, 50, 12, 8},
+                {300, 50, 20, 4},
+        };
+        float[] slotPercents = {0.08f, 0.125f, 0.3f};
+        for (int[] config : configs) {
+            for (float slotPercent : slotPercents) {
+                int width = config[0];
+                int height = config[1];
+                SliderModel model = new SliderModel();
+                model.setRangeCount(config[2]);
+                model.setSlotRadiusPercent(slotPercent);
+                model.setBarHeightPercent(0.05f);
+                SliderGeometry geometry = new SliderGeometry();
+                geometry.updateRadius(model, height - 2 * config[3]);
+                geometry.layout(model, width, height, config[3], config[3], config[3], config[3]);
+
+                float[] xs = new float[geometry.getRangeCount() + 6];
+                for (int i = 0; i < geometry.getRangeCount(); ++i) {
+                    xs[i] = geometry.getSlotX(i);
+                }
+                for (int i = geometry.getRangeCount(); i < xs.length; ++i) {
+                    xs[i] = geometry.getFirstSlotX()
+                            + random.nextFloat() * (geometry.getLastSlotX() - geometry.getFirstSlotX());
+                }
+                for (float x : xs) {
+                    RenderPlan plan = new RenderPlan();
+                    plan.compile(geometry, x, FILLED, EMPTY, STROKE);
+                    assertEquals(RenderPlan.LOD_FULL, plan.getLevelOfDetail());
+                    assertTrue(plan.getOpCount() <= 4);
+                    String message = "rangeCount=" + config[2] + " slot=" + slotPercent + " x=" + x;
+                    assertSamePixels(message, legacy(geometry, width, height, x), planned(plan, width, height));
+                    assertDisjoint(message, plan, width, height);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void fillsOnlyBetweenThumbsInRangeMode() {
+        int width = 400;
+        int height = 60;
+        SliderModel model = new SliderModel();
+        model.setRangeCount(12);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, height);
+        geometry.layout(model, width, height, 8, 0, 8, 0);
+
+        Random random = new Random(2);
+        for (int k = 0; k < 30; ++k) {
+            float a = geometry.getFirstSlotX()
+                    + random.nextFloat() * (geometry.getLastSlotX() - geometry.getFirstSlotX());
+            float b = k % 3 == 0 ? geometry.getSlotX(random.nextInt(12))
+                    : geometry.getFirstSlotX()
+                    + random.nextFloat() * (geometry.getLastSlotX() - geometry.getFirstSlotX());
+            float from = Math.min(a, b);
+            float to = Math.max(a, b);
+            RenderPlan plan = new RenderPlan();
+            plan.compile(geometry, from, to, FILLED, EMPTY, STROKE);
+            assertTrue(plan.getOpCount() <= 6);
+            String message = "from=" + from + " to=" + to;
+            assertSamePixels(message, legacyRange(geometry, width, height, from, to), planned(plan, width, height));
+            assertDisjoint(message, plan, width, height);
+        }
+    }
+
+    @Test
+    public void skipsSlotsHiddenByAThickerBar() {
+        int width = 400;
+        int height = 60;
+        SliderModel model = new SliderModel();
+        model.setRangeCount(12);
+        model.setSlotRadiusPercent(0.08f);
+        model.setBarHeightPercent(0.4f);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, height);
+        geometry.layout(model, width, height, 8, 0, 8, 0);
+
+        Random random = new Random(4);
+        for (int k = 0; k < 30; ++k) {
+            float a = geometry.getFirstSlotX()
+                    + random.nextFloat() * (geometry.getLastSlotX() - geometry.getFirstSlotX());
+            float b = geometry.getSlotX(random.nextInt(12));
+            RenderPlan plan = new RenderPlan();
+            plan.compile(geometry, Math.min(a, b), Math.max(a, b), FILLED, EMPTY, STROKE);
+            String message = "from=" + Math.min(a, b) + " to=" + Math.max(a, b);
+            assertSamePixels(message, legacyRange(geometry, width, height, Math.min(a, b), Math.max(a, b)),
+                    planned(plan, width, height));
+            assertDisjoint(message, plan, width, height);
+
+            plan.compile(geometry, a, FILLED, EMPTY, STROKE);
+            int points = 0;
+            for (int op = 0; op < plan.getOpCount(); ++op) {
+                if (plan.getOpType(op) == RenderPlan.OP_POINTS) {
+                    points += (int) plan.getOpArg(op, 1) / 2;
+                }
+            }
+            // 单滑块时横线两端都比圆点长出一截,只有紧挨在滑块左边、伸出选中横线的圆点要画
+            assertTrue("x=" + a + " points=" + points, points <= 1);
+            assertSamePixels("x=" + a, legacy(geometry, width, height, a), planned(plan, width, height));
+            assertDisjoint("x=" + a, plan, width, height);
+        }
+    }
+
+    @Test
+    public void batchesSlotsIntoOneCallPerColor() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(1000);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 50);
+        geometry.layout(model, 40000, 50, 0, 0, 0, 0);
+
+        RenderPlan plan = new RenderPlan();
+        plan.compile(geometry, geometry.getSlotX(499), FILLED, EMPTY, STROKE);
+
+        assertEquals(4, plan.getOpCount());
+        int points = 0;
+        for (int op = 0; op < plan.getOpCount(); ++op) {
+            if (plan.getOpType(op) == RenderPlan.OP_POINTS) {
+                points += (int) plan.getOpArg(op, 1) / 2;
+            }
+        }
+        assertEquals(1000, points);
+    }
+
+    @Test
+    public void continuousTrackLooksLikeOverlappingSlots() {
+        int width = 400;
+        int height = 50;
+        SliderModel model = new SliderModel();
+        model.setRangeCount(200);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, height);
+        geometry.layout(model, width, height, 0, 0, 0, 0);
+
+        RenderPlan plan = new RenderPlan();
+        float x = geometry.getSlotX(120);
+        plan.compile(geometry, x, FILLED, EMPTY, STROKE);
+        assertEquals(RenderPlan.LOD_CONTINUOUS, plan.getLevelOfDetail());
+        assertTrue(plan.getOpCount() <= 4);
+        assertDisjoint("continuous", plan, width, height);
+
+        Raster expected = legacy(geometry, width, height, x);
+        Raster actual = planned(plan, width, height);
+        int covered = 0;
+        int diff = 0;
+        for (int i = 0; i < expected.pixels.length; ++i) {
+            if (expected.pixels[i] != 0) {
+                ++covered;
+            }
+            if (expected.pixels[i] != actual.pixels[i]) {
+                ++diff;
+            }
+        }
+        // 只有圆点连成的带边缘上的起伏会不同
+        assertTrue("diff=" + diff + " covered=" + covered, diff * 100 < covered);
+    }
+
+    @Test
+    public void decimatesToMinMarkSpacing() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(1000);
+        model.setSlotRadiusPercent(0.02f);
+        // 横线比圆点细,圆点都要画
+        model.setBarHeightPercent(0.01f);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 50);
+        geometry.layout(model, 3000, 50, 0, 0, 0, 0);
+
+        RenderPlan plan = new RenderPlan();
+        plan.setMinMarkSpacing(8);
+        float x = geometry.getSlotX(500) + 0.5f;
+        plan.compile(geometry, x, FILLED, EMPTY, 1);
+
+        assertEquals(RenderPlan.LOD_DECIMATED, plan.getLevelOfDetail());
+        assertTrue(plan.getMarkCount() <= 3000 / 8 + 2);
+
+        float[] points = plan.getPoints();
+        int marks = 0;
+        float previous = -Float.MAX_VALUE;
+        for (int op = 0; op < plan.getOpCount(); ++op) {
+            if (plan.getOpType(op) != RenderPlan.OP_POINTS) {
+                continue;
+            }
+            int offset = (int) plan.getOpArg(op, 0);
+            int count = (int) plan.getOpArg(op, 1);
+            for (int i = offset; i < offset + count; i += 2) {
+                // 选中和没选中的圆点仍然按滑块位置划分
+                assertEquals(points[i] <= x ? FILLED : EMPTY, plan.getOpColor(op));
+                ++marks;
+            }
+        }
+        assertEquals(plan.getMarkCount(), marks);
+        for (int i = 0; i < plan.getMarkCount(); ++i) {
+            assertTrue(points[i * 2] > previous);
+            if (i > 0 && i < plan.getMarkCount() - 1) {
+                assertTrue(points[i * 2] - previous >= 8 - 1e-3f);
+            }
+            previous = points[i * 2];
+        }
+        assertEquals(geometry.getLastSlotX(), points[(plan.getMarkCount() - 1) * 2], 0f);
+    }
+
+    @Test
+    public void drawCostIsBoundedByWidth() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(1000000);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 50);
+        geometry.layout(model, 1080, 50, 0, 0, 0, 0);
+
+        RenderPlan plan = new RenderPlan();
+        plan.setMinMarkSpacing(2);
+        plan.compile(geometry, geometry.getSlotX(123456), FILLED, EMPTY, STROKE);
+        assertEquals(RenderPlan.LOD_CONTINUOUS, plan.getLevelOfDetail());
+        assertEquals(0, plan.getMarkCount());
+        assertEquals(4, plan.getOpCount());
+    }
+
+    @Test
+    public void recompilesOnlyWhenInputsChange() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 50);
+        geometry.layout(model, 500, 50, 0, 0, 0, 0);
+
+        RenderPlan plan = new RenderPlan();
+        assertTrue(plan.compile(geometry, 50, FILLED, EMPTY, STROKE));
+        assertFalse(plan.compile(geometry, 50, FILLED, EMPTY, STROKE));
+        assertTrue(plan.compile(geometry, 60, FILLED, EMPTY, STROKE));
+        assertTrue(plan.compile(geometry, 60, FILLED, 0xFF000000, STROKE));
+
+        geometry.layout(model, 600, 50, 0, 0, 0, 0);
+        assertTrue(plan.compile(geometry, 60, FILLED, 0xFF000000, STROKE));
+    }
+}
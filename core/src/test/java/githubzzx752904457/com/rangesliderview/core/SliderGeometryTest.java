@@ -0,0 +1,131 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SliderGeometryTest {
+
+    @Test
+    public void layoutSplitsContentWidthEvenly() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 100);
+        geometry.layout(model, 520, 100, 10, 0, 10, 0);
+
+        assertEquals(100f, geometry.getSpacing(), 0f);
+        assertEquals(50, geometry.getCenterY());
+        float[] expected = {60, 160, 260, 360, 460};
+        for (int i = 0; i < expected.length; ++i) {
+            assertEquals(expected[i], geometry.getSlotX(i), 0f);
+        }
+        assertEquals(25f, geometry.getRadius(), 0f);
+        assertEquals(10, geometry.getBarHeight());
+    }
+
+    @Test
+    public void layoutGrowsSlotPositionsWithRangeCount() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        model.setRangeCount(50);
+        geometry.layout(model, 1000, 100, 0, 0, 0, 0);
+
+        assertEquals(50, geometry.getRangeCount());
+        assertEquals(990f, geometry.getLastSlotX(), 0f);
+        assertEquals(49, geometry.nearestIndex(5000));
+        assertEquals(50, geometry.filledCount(5000));
+    }
+
+    @Test
+    public void keepsSubPixelSpacingForDenseSlots() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        model.setRangeCount(100000);
+        geometry.layout(model, 1000, 100, 0, 0, 0, 0);
+
+        assertEquals(0.01f, geometry.getSpacing(), 1e-7f);
+        assertEquals(500f, geometry.getSlotX(50000), 0.01f);
+        assertEquals(999.995f, geometry.getLastSlotX(), 0.01f);
+        assertEquals(50000, geometry.nearestIndex(500.004f));
+        assertEquals(49999, geometry.nearestIndex(499.996f));
+    }
+
+    @Test
+    public void updateRecomputesOnlyWhenInputsChange() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        assertTrue(geometry.update(model, 520, 100, 10, 0, 10, 0));
+        int version = geometry.getVersion();
+        assertFalse(geometry.update(model, 520, 100, 10, 0, 10, 0));
+        assertEquals(version, geometry.getVersion());
+
+        // 点数变多时数组跟着变大
+        model.setRangeCount(8);
+        assertTrue(geometry.update(model, 520, 100, 10, 0, 10, 0));
+        assertEquals(8, geometry.getRangeCount());
+        assertEquals(478.75f, geometry.getLastSlotX(), 0f);
+
+        assertTrue(geometry.update(model, 520, 100, 20, 0, 20, 0));
+        model.setSliderRadiusPercent(0.5f);
+        assertTrue(geometry.update(model, 520, 100, 20, 0, 20, 0));
+        assertEquals(50f, geometry.getRadius(), 0f);
+        assertTrue(geometry.update(model, 520, 60, 20, 0, 20, 0));
+        assertEquals(30f, geometry.getRadius(), 0f);
+        assertEquals(30, geometry.getCenterY());
+    }
+
+    @Test
+    public void hitTestUsesSliderRadius() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 100);
+
+        assertTrue(geometry.isInThumb(50, 50, 75, 25));
+        assertFalse(geometry.isInThumb(50, 50, 76, 50));
+    }
+
+    @Test
+    public void picksNearestThumbWithoutScanningSlots() {
+        SliderModel model = new SliderModel();
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.updateRadius(model, 100);
+
+        assertEquals(SliderGeometry.THUMB_MIN, geometry.pickThumb(100, 300, 50, 110, 50));
+        assertEquals(SliderGeometry.THUMB_MAX, geometry.pickThumb(100, 300, 50, 290, 60));
+        // 两个滑块靠得很近时按距离选
+        assertEquals(SliderGeometry.THUMB_MAX, geometry.pickThumb(100, 120, 50, 115, 50));
+        assertEquals(SliderGeometry.THUMB_MIN, geometry.pickThumb(100, 120, 50, 110, 50));
+        assertEquals(SliderGeometry.THUMB_EITHER, geometry.pickThumb(200, 200, 50, 210, 50));
+        assertEquals(SliderGeometry.THUMB_NONE, geometry.pickThumb(100, 300, 50, 200, 50));
+    }
+
+    @Test
+    public void rangeStaysOrderedWhenRangeCountShrinks() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(10);
+        model.setRange(7, 9);
+        model.setRangeCount(5);
+        assertEquals(4, model.getMinIndex());
+        assertEquals(4, model.getMaxIndex());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsInvertedRange() {
+        new SliderModel().setRange(3, 2);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsRangeCountBelowTwo() {
+        new SliderModel().setRangeCount(1);
+    }
+
+    @Test
+    public void measureFollowsSpecMode() {
+        assertEquals(300, SliderMeasure.resolve(SliderMeasure.MODE_EXACTLY, 300, 500));
+        assertEquals(300, SliderMeasure.resolve(SliderMeasure.MODE_AT_MOST, 300, 500));
+        assertEquals(200, SliderMeasure.resolve(SliderMeasure.MODE_AT_MOST, 300, 200));
+        assertEquals(500, SliderMeasure.resolve(SliderMeasure.MODE_UNSPECIFIED, 300, 500));
+    }
+}
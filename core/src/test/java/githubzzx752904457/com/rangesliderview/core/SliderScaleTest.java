@@ -0,0 +1,97 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SliderScaleTest {
+
+    private static final SliderValues AMOUNTS = SliderValues.of(
+            new double[]{100, 10000, 30000, 50000, 100000}, null);
+
+    private static float[] layout(SliderScale scale, SliderValues values) {
+        float[] out = new float[values.size()];
+        scale.layout(values, 0, 300, out);
+        return out;
+    }
+
+    @Test
+    public void linearFollowsValues() {
+        float[] x = layout(SliderScale.LINEAR, AMOUNTS);
+        assertEquals(0f, x[0], 0f);
+        assertEquals(300f * 9900 / 99900, x[1], 1e-3f);
+        assertEquals(300f * 49900 / 99900, x[3], 1e-3f);
+        assertEquals(300f, x[4], 0f);
+    }
+
+    @Test
+    public void logSpacesDecadesEvenly() {
+        float[] x = layout(SliderScale.LOG, AMOUNTS);
+        // 100 -> 10000 和 10000 -> 100000 分别是两个和一个数量级
+        assertEquals(200f, x[1], 1e-3f);
+        assertEquals(300f, x[4], 0f);
+        assertTrue(x[1] < x[2] && x[2] < x[3] && x[3] < x[4]);
+    }
+
+    @Test
+    public void breakpointsInterpolateBetweenSegments() {
+        SliderScale scale = SliderScale.breakpoints(
+                new double[]{100, 10000, 100000}, new double[]{0, 0.25, 1});
+        float[] x = layout(scale, AMOUNTS);
+        assertEquals(0f, x[0], 0f);
+        assertEquals(75f, x[1], 1e-3f);
+        // 30000 在第二段的 2/9 处
+        assertEquals(75f + 225f * 2 / 9, x[2], 1e-3f);
+        assertEquals(300f, x[4], 0f);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDecreasingValues() {
+        layout(SliderScale.LINEAR, SliderValues.of(new double[]{1, 3, 2, 4}, null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void logRejectsZero() {
+        layout(SliderScale.LOG, SliderValues.of(new double[]{0, 1}, null));
+    }
+
+    @Test
+    public void acceptsOnlyIncreasingValuesInsideTheDomain() {
+        assertTrue(SliderScale.LOG.accepts(AMOUNTS));
+        assertFalse(SliderScale.LINEAR.accepts(SliderValues.of(new double[]{3, 3, 3}, null)));
+        assertFalse(SliderScale.LINEAR.accepts(SliderValues.of(new double[]{1, 3, 2}, null)));
+        assertFalse(SliderScale.LOG.accepts(SliderValues.of(new double[]{0, 1, 2}, null)));
+        SliderScale scale = SliderScale.breakpoints(new double[]{0, 10}, new double[]{0, 1});
+        assertTrue(scale.accepts(SliderValues.of(new double[]{0, 5, 10}, null)));
+        assertFalse(scale.accepts(SliderValues.of(new double[]{0, 5, 11}, null)));
+    }
+
+    @Test
+    public void geometrySnapsOnScaledPositions() {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(AMOUNTS.size());
+        SliderGeometry geometry = new SliderGeometry();
+        assertTrue(geometry.update(model, 400, 100, 0, 0, 0, 0));
+        float first = geometry.getFirstSlotX();
+        float last = geometry.getLastSlotX();
+
+        geometry.setScale(SliderScale.LOG, AMOUNTS);
+        assertTrue(geometry.update(model, 400, 100, 0, 0, 0, 0));
+        assertFalse(geometry.update(model, 400, 100, 0, 0, 0, 0));
+        // 两端不变,中间的点按数值排列
+        assertEquals(first, geometry.getFirstSlotX(), 0f);
+        assertEquals(last, geometry.getLastSlotX(), 0f);
+        float x1 = geometry.getSlotX(1);
+        assertEquals(first + (last - first) * 2 / 3, x1, 1e-3f);
+        assertEquals(1, geometry.nearestIndex(x1 - 1));
+        assertEquals(0, geometry.nearestIndex((first + x1) / 2 - 1));
+        assertEquals(2, geometry.filledCount(x1 + 1));
+
+        // 点数和数值个数不一致时退回等分
+        model.setRangeCount(3);
+        geometry.update(model, 400, 100, 0, 0, 0, 0);
+        assertEquals(geometry.getSpacing(), geometry.getSlotX(1) - geometry.getSlotX(0), 1e-3f);
+    }
+}
@@ -0,0 +1,130 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SliderStateStoreTest {
+
+    @Test
+    public void putGetAndOverwrite() {
+        SliderStateStore store = new SliderStateStore();
+        store.put(42, 3, 1, 4);
+        store.put(-7, 0, 0, 0);
+        store.put(42, 2, 2, 3);
+
+        SliderState state = new SliderState();
+        assertTrue(store.get(42, state));
+        assertEquals(2, state.getCurrentIndex());
+        assertEquals(2, state.getMinIndex());
+        assertEquals(3, state.getMaxIndex());
+        assertEquals(0, store.getCurrentIndex(-7, 9));
+        assertEquals(9, store.getCurrentIndex(8, 9));
+        assertFalse(store.get(8, state));
+        assertEquals(2, store.size());
+    }
+
+    @Test
+    public void matchesHashMapUnderRandomOperations() {
+        Random random = new Random(3);
+        SliderStateStore store = new SliderStateStore(0);
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        for (int i = 0; i < 20000; ++i) {
+            long id = random.nextInt(500) - 250;
+            if (random.nextInt(4) == 0) {
+                assertEquals(expected.remove(id) != null, store.remove(id));
+            } else {
+                int index = random.nextInt(1000);
+                store.put(id, index, 0, index);
+                expected.put(id, index);
+            }
+        }
+        assertEquals(expected.size(), store.size());
+        for (long id = -250; id < 250; ++id) {
+            Integer index = expected.get(id);
+            assertEquals(index != null, store.contains(id));
+            if (index != null) {
+                assertEquals(index.intValue(), store.getCurrentIndex(id, -1));
+                assertEquals(index.intValue(), store.getMaxIndex(id, -1));
+            }
+        }
+    }
+
+    @Test
+    public void serializesCompactly() {
+        SliderStateStore store = new SliderStateStore();
+        for (int id = 0; id < 1000; ++id) {
+            store.put(id, id % 5, 0, 4);
+        }
+        store.put(Long.MIN_VALUE, 1, 1, 1);
+        store.put(Long.MAX_VALUE, 2, 0, 3);
+
+        byte[] data = store.toByteArray();
+        // 小的 id 和下标每项只占几个字节
+        assertTrue("size=" + data.length, data.length < 1000 * 6 + 64);
+
+        SliderStateStore restored = new SliderStateStore();
+        restored.put(5000, 1, 1, 1);
+        restored.readFrom(data);
+        assertEquals(store.size(), restored.size());
+        assertFalse(restored.contains(5000));
+        for (int id = 0; id < 1000; ++id) {
+            assertEquals(id % 5, restored.getCurrentIndex(id, -1));
+            assertEquals(4, restored.getMaxIndex(id, -1));
+        }
+        assertEquals(1, restored.getMinIndex(Long.MIN_VALUE, -1));
+        assertEquals(3, restored.getMaxIndex(Long.MAX_VALUE, -1));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsTruncatedData() {
+        SliderStateStore store = new SliderStateStore();
+        store.put(300, 200, 0, 300);
+        byte[] data = store.toByteArray();
+        new SliderStateStore().readFrom(Arrays.copyOf(data, data.length - 1));
+    }
+
+    @Test
+    public void invalidDataKeepsCurrentContents() {
+        SliderStateStore source = new SliderStateStore();
+        source.put(1, 1, 0, 2);
+        source.put(2, 3, 3, 3);
+        byte[] data = source.toByteArray();
+
+        SliderStateStore store = new SliderStateStore();
+        store.put(5000, 1, 1, 1);
+        byte[][] invalid = {
+                Arrays.copyOf(data, data.length - 1),
+                // 项数远大于剩余的字节
+                {1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07, 0, 0, 0, 0},
+                // 项数超过 long 的范围
+                {1, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff,
+                        (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x01},
+                // 下标超过 int 的范围
+                {1, 1, 2, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x0f, 0, 0},
+                // 区间两端颠倒
+                {1, 1, 2, 0, 3, 1},
+        };
+        for (byte[] bytes : invalid) {
+            try {
+                store.readFrom(bytes);
+                fail("accepted " + Arrays.toString(bytes));
+            } catch (IllegalArgumentException expected) {
+                // 继续检查
+            }
+            assertEquals(1, store.size());
+            assertEquals(1, store.getCurrentIndex(5000, -1));
+        }
+        store.readFrom(data);
+        assertEquals(2, store.size());
+        assertEquals(3, store.getMinIndex(2, -1));
+    }
+}
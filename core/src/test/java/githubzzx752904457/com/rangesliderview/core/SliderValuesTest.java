@@ -0,0 +1,68 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public class SliderValuesTest {
+
+    private static final class CountingFormatter implements SliderValues.Formatter {
+        int calls;
+
+        @Override
+        public String format(double value) {
+            ++calls;
+            return "v" + (long) value;
+        }
+    }
+
+    @Test
+    public void formatsLazilyAndCachesLabels() {
+        CountingFormatter formatter = new CountingFormatter();
+        SliderValues values = SliderValues.linear(0, 5, 300000, formatter);
+        assertEquals(0, formatter.calls);
+
+        String label = values.labelAt(1000);
+        assertEquals("v5000", label);
+        assertEquals(1, formatter.calls);
+        // 再次取同一个点直接返回缓存的对象
+        assertSame(label, values.labelAt(1000));
+        assertEquals(1, formatter.calls);
+        assertEquals(299999 * 5.0, values.valueAt(299999), 0);
+    }
+
+    @Test
+    public void cacheIsBoundedAndRoundedUpToPowerOfTwo() {
+        CountingFormatter formatter = new CountingFormatter();
+        SliderValues values = SliderValues.linear(0, 1, 1000, formatter, 100);
+        assertEquals(128, values.getCacheSize());
+
+        for (int pass = 0; pass < 3; ++pass) {
+            for (int i = 0; i < 128; ++i) {
+                values.labelAt(i);
+            }
+        }
+        assertEquals(128, formatter.calls);
+
+        // 与 0 映射到同一个槽,把 0 挤出去
+        values.labelAt(128);
+        values.labelAt(0);
+        assertEquals(130, formatter.calls);
+    }
+
+    @Test
+    public void copiesExplicitValues() {
+        double[] raw = {100, 10000, 30000};
+        SliderValues values = SliderValues.of(raw, null);
+        raw[0] = 0;
+        assertEquals(3, values.size());
+        assertEquals(100, values.valueAt(0), 0);
+        assertEquals("100.0", values.labelAt(0));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsIndexOutOfRange() {
+        SliderValues.linear(0, 1, 10, null).labelAt(10);
+    }
+}
@@ -0,0 +1,162 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 对比 {@link SlotSnapper} 与原来逐点扫描的实现
+ */
+public class SlotSnapperTest {
+
+    private static int linearNearest(float[] positions, int count, float x) {
+        float min = Float.MAX_VALUE;
+        int j = 0;
+        for (int i = 0; i < count; ++i) {
+            float dx = Math.abs(x - positions[i]);
+            if (dx < min) {
+                min = dx;
+                j = i;
+            }
+        }
+        return j;
+    }
+
+    private static int linearCount(float[] positions, int count, float x) {
+        int n = 0;
+        for (int i = 0; i < count; ++i) {
+            if (positions[i] <= x) {
+                ++n;
+            }
+        }
+        return n;
+    }
+
+    /** 用 {@link SliderGeometry#layout} 算出的坐标,间距是不取整的 float */
+    private static float[] layout(int width, int paddingLeft, int rangeCount) {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.layout(model, width + paddingLeft, 100, paddingLeft, 0, 0, 0);
+        return Arrays.copyOf(geometry.getSlotPositions(), rangeCount);
+    }
+
+    private static void assertMatchesLinear(float[] positions, float x) {
+        SlotSnapper snapper = new SlotSnapper();
+        snapper.setPositions(positions, positions.length);
+        assertMatchesLinear(snapper, positions, x);
+    }
+
+    private static void assertMatchesLinear(SlotSnapper snapper, float[] positions, float x) {
+        assertEquals("nearest x=" + x, linearNearest(positions, positions.length, x), snapper.nearestIndex(x));
+        assertEquals("count x=" + x, linearCount(positions, positions.length, x), snapper.countAtOrBefore(x));
+    }
+
+    @Test
+    public void uniformLayoutMatchesLinearScan() {
+        int[] counts = {2, 3, 5, 7, 100, 540, 1000};
+        for (int count : counts) {
+            float[] positions = layout(1080, 16, count);
+            SlotSnapper snapper = new SlotSnapper();
+            snapper.setPositions(positions, count);
+            assertTrue(snapper.isUniform());
+            for (float x = -50; x <= 1150; x += 0.25f) {
+                assertMatchesLinear(snapper, positions, x);
+            }
+        }
+    }
+
+    @Test
+    public void geometryLayoutTakesUniformPath() {
+        int[] counts = {2, 3, 5, 7, 100, 540, 1000, 3000};
+        for (int count : counts) {
+            SliderModel model = new SliderModel();
+            model.setRangeCount(count);
+            SliderGeometry geometry = new SliderGeometry();
+            geometry.update(model, 1080, 100, 16, 0, 16, 0);
+            assertTrue("count=" + count, geometry.isUniform());
+            float[] positions = Arrays.copyOf(geometry.getSlotPositions(), count);
+            for (float x = -50; x <= 1150; x += 0.25f) {
+                assertEquals("nearest x=" + x, linearNearest(positions, count, x), geometry.nearestIndex(x));
+                assertEquals("count x=" + x, linearCount(positions, count, x), geometry.filledCount(x));
+            }
+            // 从坐标检查时允许舍入误差
+            SlotSnapper snapper = new SlotSnapper();
+            snapper.setPositions(positions, count);
+            assertTrue("count=" + count, snapper.isUniform());
+        }
+    }
+
+    @Test
+    public void tiesPickLowerIndex() {
+        float[] positions = {10, 20, 30};
+        assertMatchesLinear(positions, 15);
+        assertMatchesLinear(positions, 25);
+        SlotSnapper snapper = new SlotSnapper();
+        snapper.setPositions(positions, positions.length);
+        assertEquals(0, snapper.nearestIndex(15));
+        assertEquals(1, snapper.nearestIndex(25));
+    }
+
+    @Test
+    public void subPixelSpacingMatchesLinearScan() {
+        // rangeCount 大于宽度时间距不到 1 像素,仍然等间距
+        float[] positions = layout(300, 8, 1000);
+        SlotSnapper snapper = new SlotSnapper();
+        snapper.setPositions(positions, positions.length);
+        assertTrue(snapper.isUniform());
+        for (float x = 0; x <= 320; x += 0.05f) {
+            assertMatchesLinear(snapper, positions, x);
+        }
+    }
+
+    @Test
+    public void collapsedPositionsMatchLinearScan() {
+        // 没有宽度时所有点重叠
+        float[] positions = new float[50];
+        Arrays.fill(positions, 8);
+        SlotSnapper snapper = new SlotSnapper();
+        snapper.setPositions(positions, positions.length);
+        assertFalse(snapper.isUniform());
+        for (float x = 0; x <= 20; x += 0.5f) {
+            assertMatchesLinear(snapper, positions, x);
+        }
+    }
+
+    @Test
+    public void arbitraryPositionsMatchLinearScan() {
+        Random random = new Random(42);
+        for (int round = 0; round < 200; ++round) {
+            int count = 2 + random.nextInt(300);
+            float[] positions = new float[count];
+            for (int i = 0; i < count; ++i) {
+                // 取整数以制造重复的坐标
+                positions[i] = random.nextBoolean() ? random.nextInt(500) : random.nextFloat() * 500;
+            }
+            Arrays.sort(positions);
+            SlotSnapper snapper = new SlotSnapper();
+            snapper.setPositions(positions, count);
+            for (int k = 0; k < 200; ++k) {
+                assertMatchesLinear(snapper, positions, random.nextFloat() * 600 - 50);
+            }
+            for (float p : positions) {
+                assertMatchesLinear(snapper, positions, p);
+            }
+        }
+    }
+
+    @Test
+    public void containsUsesFirstAndLastSlot() {
+        SlotSnapper snapper = new SlotSnapper();
+        snapper.setPositions(layout(500, 0, 5), 5);
+        assertFalse(snapper.contains(snapper.first() - 1));
+        assertTrue(snapper.contains(snapper.first()));
+        assertTrue(snapper.contains(snapper.last()));
+        assertFalse(snapper.contains(snapper.last() + 1));
+    }
+}
@@ -0,0 +1,57 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SnapMotionTest {
+
+    private static final long MS = 1000000L;
+
+    @Test
+    public void predictsStoppingDistanceInVelocityDirection() {
+        assertEquals(350f, SnapMotion.predict(100, 1000, 2000), 1e-3f);
+        assertEquals(-150f, SnapMotion.predict(100, -1000, 2000), 1e-3f);
+        assertEquals(100f, SnapMotion.predict(100, 0, 2000), 0f);
+    }
+
+    @Test
+    public void durationKeepsReleaseVelocity() {
+        // 匀减速走 250 像素,初速度 1000 像素/秒,需要 0.5 秒
+        assertEquals(500 * MS, SnapMotion.duration(250, 1000, 100 * MS, 800 * MS));
+        assertEquals(100 * MS, SnapMotion.duration(1, 1000, 100 * MS, 800 * MS));
+        assertEquals(800 * MS, SnapMotion.duration(250, 0, 100 * MS, 800 * MS));
+    }
+
+    @Test
+    public void deceleratesMonotonicallyAndStopsOnTarget() {
+        SnapMotion motion = new SnapMotion();
+        motion.start(100, 350, 500 * MS, 0);
+        assertEquals(100f, motion.positionAt(0), 0f);
+
+        float previous = 100;
+        float previousStep = Float.MAX_VALUE;
+        for (long t = 16 * MS; t < 500 * MS; t += 16 * MS) {
+            float x = motion.positionAt(t);
+            assertTrue(x > previous);
+            // 越来越慢
+            assertTrue(x - previous <= previousStep + 1e-3f);
+            previousStep = x - previous;
+            previous = x;
+            assertTrue(motion.isRunning());
+        }
+        assertEquals(350f, motion.positionAt(500 * MS), 0f);
+        assertFalse(motion.isRunning());
+    }
+
+    @Test
+    public void cancelStopsWithoutMoving() {
+        SnapMotion motion = new SnapMotion();
+        motion.start(0, 100, 100 * MS, 0);
+        motion.cancel();
+        assertFalse(motion.isRunning());
+        assertEquals(100f, motion.getTarget(), 0f);
+    }
+}
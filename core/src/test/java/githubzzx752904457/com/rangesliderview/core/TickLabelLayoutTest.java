@@ -0,0 +1,158 @@
+package githubzzx752904457.com.rangesliderview.core;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TickLabelLayoutTest {
+
+    /** 每个字符 6 像素宽 */
+    private static final TextWidthCache.Measurer MONOSPACE = new TextWidthCache.Measurer() {
+        @Override
+        public float measureText(String text) {
+            return text.length() * 6;
+        }
+    };
+
+    /** 配合 {@link #labels(int...)},数值就是点的下标 */
+    private static final double[] INDICES = {0, 1, 2, 3, 4, 5, 6, 7, 8};
+
+    private static SliderGeometry geometry(int rangeCount, int width) {
+        SliderModel model = new SliderModel();
+        model.setRangeCount(rangeCount);
+        SliderGeometry geometry = new SliderGeometry();
+        geometry.update(model, width, 100, 0, 0, 0, 0);
+        return geometry;
+    }
+
+    private static void assertNoOverlap(TickLabelLayout layout, float gap, float minX, float maxX) {
+        for (int i = 0; i < layout.getCount(); ++i) {
+            assertTrue(layout.getLeft(i) >= minX && layout.getRight(i) <= maxX);
+            if (i > 0) {
+                assertTrue(layout.getIndex(i) > layout.getIndex(i - 1));
+                assertTrue("label " + i, layout.getLeft(i) >= layout.getRight(i - 1) + gap);
+            }
+        }
+    }
+
+    @Test
+    public void placesEveryLabelWhenThereIsRoom() {
+        SliderGeometry geometry = geometry(5, 500);
+        TextWidthCache widths = new TextWidthCache(MONOSPACE);
+        TickLabelLayout layout = new TickLabelLayout();
+        SliderValues values = SliderValues.of(new double[]{1, 2, 3, 4, 5}, null);
+
+        assertEquals(5, layout.layout(geometry, values, widths, 4, 0, 500));
+        // "1.0" 宽 18,以点为中心
+        assertEquals(geometry.getSlotX(2) - 9, layout.getLeft(2), 1e-4);
+        assertEquals("3.0", layout.getText(2));
+        assertNoOverlap(layout, 4, 0, 500);
+
+        // 点数和数值个数不一致时不画
+        assertEquals(0, layout.layout(geometry, SliderValues.of(new double[]{1, 2}, null), widths, 4, 0, 500));
+        assertEquals(0, layout.layout(geometry, null, widths, 4, 0, 500));
+    }
+
+    @Test
+    public void cullsOverlappingLabelsAndKeepsTheEnds() {
+        int n = 100000;
+        SliderGeometry geometry = geometry(n, 1000);
+        TextWidthCache widths = new TextWidthCache(MONOSPACE);
+        TickLabelLayout layout = new TickLabelLayout();
+        SliderValues values = SliderValues.linear(0, 1, n, null);
+
+        int count = layout.layout(geometry, values, widths, 4, 0, 1000);
+        assertTrue(count > 2 && count < 40);
+        assertEquals(0, layout.getIndex(0));
+        assertEquals(n - 1, layout.getIndex(count - 1));
+        // 超出两边的文字向内移
+        assertEquals(0, layout.getLeft(0), 0);
+        assertEquals(1000, layout.getRight(count - 1), 0);
+        assertNoOverlap(layout, 4, 0, 1000);
+        // 跳过落在前一个文字范围内的点,只测量画出来的文字附近的几个
+        assertTrue("measured " + widths.getMeasureCount(), widths.getMeasureCount() < count * 4);
+    }
+
+    @Test
+    public void keepsLabelsThatFitExactly() {
+        // 9 个点,从 50 到 850,每个点间隔 100 像素
+        SliderGeometry geometry = geometry(9, 900);
+        TextWidthCache widths = new TextWidthCache(MONOSPACE);
+        TickLabelLayout layout = new TickLabelLayout();
+
+        // 宽 96 的文字加上间距 4 正好排满
+        SliderValues values = SliderValues.of(INDICES, labels(16, 16, 16, 16, 16, 16, 16, 16, 16));
+        assertEquals(9, layout.layout(geometry, values, widths, 4, 0, 900));
+        assertNoOverlap(layout, 4, 0, 900);
+
+        // 第 1 个很宽放不下,按它的宽度估计会跳过第 2 个;第 2 个的左边界正好是第 0 个的右边界加间距
+        values = SliderValues.of(INDICES, labels(2, 84, 63, 2, 2, 2, 2, 2, 2));
+        int count = layout.layout(geometry, values, widths, 5, 0, 900);
+        assertEquals(0, layout.getIndex(0));
+        assertEquals(2, layout.getIndex(1));
+        assertEquals(layout.getRight(0) + 5, layout.getLeft(1), 0);
+        assertEquals(8, layout.getIndex(count - 1));
+        assertNoOverlap(layout, 5, 0, 900);
+    }
+
+    /** 第 i 个点的文字是 lengths[i] 个字符 */
+    private static SliderValues.Formatter labels(final int... lengths) {
+        return new SliderValues.Formatter() {
+            @Override
+            public String format(double value) {
+                int index = (int) value;
+                char[] text = new char[lengths[index]];
+                Arrays.fill(text, (char) ('a' + index));
+                return new String(text);
+            }
+        };
+    }
+
+    @Test
+    public void reusesLayoutUntilInputsChange() {
+        SliderGeometry geometry = geometry(50, 400);
+        TextWidthCache widths = new TextWidthCache(MONOSPACE);
+        TickLabelLayout layout = new TickLabelLayout();
+        SliderValues values = SliderValues.linear(0, 10, 50, null);
+
+        int count = layout.layout(geometry, values, widths, 4, 0, 400);
+        int measured = widths.getMeasureCount();
+        assertEquals(count, layout.layout(geometry, values, widths, 4, 0, 400));
+        assertEquals(measured, widths.getMeasureCount());
+
+        // 字号变了,宽度重新测量
+        widths.clear();
+        layout.layout(geometry, values, widths, 4, 0, 400);
+        assertTrue(widths.getMeasureCount() > measured);
+
+        // 宽度变大后能放下更多文字,测量过的文字不再测量
+        measured = widths.getMeasureCount();
+        SliderModel model = new SliderModel();
+        model.setRangeCount(50);
+        geometry.update(model, 4000, 100, 0, 0, 0, 0);
+        assertTrue(layout.layout(geometry, values, widths, 4, 0, 4000) > count);
+        assertTrue(widths.getMeasureCount() - measured < 50);
+        assertNoOverlap(layout, 4, 0, 4000);
+    }
+
+    @Test
+    public void drawsOnlyLabelsInsideTheClip() {
+        SliderGeometry geometry = geometry(10, 1000);
+        TickLabelLayout layout = new TickLabelLayout();
+        layout.layout(geometry, SliderValues.linear(0, 1, 10, null), new TextWidthCache(MONOSPACE), 4, 0, 1000);
+        RecordingCanvas canvas = new RecordingCanvas();
+
+        assertEquals(10, layout.draw(canvas, 90, 0xff888888, Float.NEGATIVE_INFINITY, Float.POSITIVE_INFINITY));
+        canvas.reset();
+        // 第 3 个点在 350,只和它的文字 [341, 359) 相交
+        assertEquals(1, layout.draw(canvas, 90, 0xff888888, 340, 345));
+        assertEquals(1, canvas.getTextCount());
+        assertEquals("text ff888888 350.00 90.00 3.0\n", canvas.toCommands());
+        canvas.reset();
+        assertEquals(2, layout.draw(canvas, 90, 0xff888888, 355, 445));
+        assertEquals(0, layout.draw(canvas, 90, 0xff888888, 360, 440));
+    }
+}